@@ -1,15 +1,29 @@
 import java.io.*;
 import java.net.*;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
 
 import cbr_util.CBREngine;
-import com.google.gson.*;
-import de.dfki.mycbr.util.Pair;
-import model.GameStatus;
-import model.Request;
+import cbr_util.QuerySpeculator;
+import cbr_util.ResultCache;
+import cbr_util.RetrievalMode;
+import cbr_util.SingleFlight;
+import cluster.CasePartitioner;
+import cluster.ScatterGatherRetrieval;
+import cluster.ShardServer;
 import model.Response;
-import util.GameStatusProcessor;
+import profiling.ConnectionAcceptedEvent;
+import profiling.ConnectionClosedEvent;
+import profiling.FlightRecorderMonitor;
+import profiling.ResponseWriteEvent;
+import transport.ConnectionLimits;
+import transport.FrameReader;
+import transport.FrameTooLargeException;
+import transport.FrameWriter;
+import transport.RequestProcessor;
+import transport.SharedMemoryServer;
 
 /**
  * Die Main-Klasse implementiert einen Server, der Client-Anfragen über Sockets entgegennimmt.
@@ -18,19 +32,193 @@ import util.GameStatusProcessor;
  */
 public class Main {
 
+    /**
+     * Bezeichnung des Socket-Transports in den JFR-Ereignissen
+     */
+    private static final String TRANSPORT = "tcp";
+
+    /**
+     * Antwort an Clients, die wegen der Verbindungsgrenze abgelehnt werden
+     */
+    private static final byte[] REJECT_MESSAGE = "Server ausgelastet: maximale Anzahl an Verbindungen erreicht.\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Aufrufbeschreibung bei fehlenden oder ungültigen Argumenten
+     */
+    private static final String USAGE = "ERROR: Aufruf: Main [--port <port>] [--projekt <pfad.prj>]"
+            + " [--projekte <name>=<pfad.prj>[#<konzept>[#<fallbasis>]],...] [--shm <datei>] [--replay-log <datei>]"
+            + " [--jfr <verzeichnis>] [--jfr-schwelle <ms>] [--max-verbindungen <anzahl>]"
+            + " [--leerlauf-timeout <sekunden>] [--max-frame <bytes>] [--partition <index>/<anzahl>]"
+            + " [--shard-server <port>] [--shards <rechner:port,...>] [--shard-frist <ms>]"
+            + " [--retrieval voll|branch-and-bound]";
+
     /**
      * Einstiegspunkt der Anwendung. Startet den Server und akzeptiert Verbindungen von Clients.
      *
-     * @param args Kommandozeilenargumente (werden hier nicht verwendet).
+     * @param args Kommandozeilenargumente: optional {@code --shm <datei>}, um zusätzlich den
+     *             Shared-Memory-Transport für Bots auf demselben Rechner zu starten, und
+     *             {@code --replay-log <datei>}, um alle gültigen Anfragen aufzuzeichnen, sowie
+     *             {@code --jfr <verzeichnis>} (mit optional {@code --jfr-schwelle <ms>}) für eine
+     *             fortlaufende JFR-Aufzeichnung, die bei überschrittener Latenzschwelle geschrieben wird.
+     *             Verbindungsgrenzen: {@code --max-verbindungen <anzahl>}, {@code --leerlauf-timeout <sekunden>}
+     *             und {@code --max-frame <bytes>}. Allgemein: {@code --port <port>} und {@code --projekt <pfad.prj>}.
+     *             Weitere Projekte: {@code --projekte <name>=<pfad.prj>[#<konzept>[#<fallbasis>]],...}.
+     *             Verteilter Betrieb: {@code --partition <index>/<anzahl>} mit {@code --shard-server <port>} startet
+     *             eine Partition, {@code --shards <rechner:port,...>} (mit optional {@code --shard-frist <ms>})
+     *             einen Front-Knoten, der Anfragen an alle Partitionen verteilt.
+     *             Retrieval: {@code --retrieval voll} (Standard, alle Fälle) oder {@code --retrieval branch-and-bound}
+     *             (nur der beste Fall).
      */
     public static void main(String[] args) {
         int portNumber = 65432; // Port nummer, auf der der Server lauscht
 
         System.out.println("INFO: Server wird gestartet...");
 
-        // Initialisierung des CBR-Systems
+        // Optionale Kommandozeilenargumente
+        Path shmPath = null;
+        Path replayLog = null;
+        Path jfrDirectory = null;
+        Duration jfrThreshold = FlightRecorderMonitor.DEFAULT_LATENCY_THRESHOLD;
+        int maxConnections = ConnectionLimits.DEFAULT_MAX_CONNECTIONS;
+        int idleTimeoutMillis = ConnectionLimits.DEFAULT_IDLE_TIMEOUT_MILLIS;
+        int maxFrameBytes = ConnectionLimits.DEFAULT_MAX_FRAME_BYTES;
+        String projectPath = CBREngine.PROJECT_PATH;
+        int[] partition = {0, 1};
+        int shardServerPort = -1;
+        String shardAddresses = null;
+        String additionalProjects = null;
+        Duration shardDeadline = ScatterGatherRetrieval.DEFAULT_DEADLINE;
+        RetrievalMode retrievalMode = RetrievalMode.FULL_SCAN;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                System.out.println("ERROR: Fehlender Wert nach " + args[i]);
+                System.out.println(USAGE);
+                return;
+            }
+            String value = args[i + 1];
+            try {
+                switch (args[i]) {
+                    case "--port" -> portNumber = Integer.parseInt(value);
+                    case "--projekt" -> projectPath = value;
+                    case "--projekte" -> additionalProjects = value;
+                    case "--shm" -> shmPath = Path.of(value);
+                    case "--replay-log" -> replayLog = Path.of(value);
+                    case "--jfr" -> jfrDirectory = Path.of(value);
+                    case "--jfr-schwelle" -> jfrThreshold = Duration.ofMillis(Long.parseLong(value));
+                    case "--max-verbindungen" -> maxConnections = Integer.parseInt(value);
+                    case "--leerlauf-timeout" -> idleTimeoutMillis = Math.multiplyExact(Integer.parseInt(value), 1000);
+                    case "--max-frame" -> maxFrameBytes = Integer.parseInt(value);
+                    case "--partition" -> partition = CasePartitioner.parse(value);
+                    case "--shard-server" -> shardServerPort = Integer.parseInt(value);
+                    case "--shards" -> shardAddresses = value;
+                    case "--shard-frist" -> shardDeadline = Duration.ofMillis(Long.parseLong(value));
+                    case "--retrieval" -> retrievalMode = switch (value) {
+                        case "voll" -> RetrievalMode.FULL_SCAN;
+                        case "branch-and-bound" -> RetrievalMode.BRANCH_AND_BOUND;
+                        default -> throw new IllegalArgumentException("Unbekanntes Retrieval-Verfahren: " + value);
+                    };
+                    default -> {
+                        System.out.println("ERROR: Unbekanntes Argument: " + args[i]);
+                        System.out.println(USAGE);
+                        return;
+                    }
+                }
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                // NumberFormatException ist eine IllegalArgumentException, ArithmeticException stammt aus multiplyExact
+                System.out.println("ERROR: Ungültiger Wert für " + args[i] + ": " + value + " (" + e.getMessage() + ")");
+                System.out.println(USAGE);
+                return;
+            }
+        }
+
+        // Begrenzungen für TCP-Verbindungen (vor dem Laden der Projekte prüfen)
+        ConnectionLimits limits;
+        try {
+            limits = new ConnectionLimits(maxConnections, idleTimeoutMillis, maxFrameBytes);
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERROR: " + e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+
+        // Fortlaufende JFR-Aufzeichnung
+        if (jfrDirectory != null) {
+            FlightRecorderMonitor monitor = new FlightRecorderMonitor(jfrDirectory, jfrThreshold);
+            try {
+                monitor.start();
+                // Beim Beenden den letzten Stand sichern
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    monitor.dump("beendet");
+                    monitor.stop();
+                }));
+            } catch (IOException | ParseException e) {
+                System.out.println("ERROR: JFR-Aufzeichnung konnte nicht gestartet werden: " + e.getMessage());
+            }
+        }
+
+        // Initialisierung des CBR-Systems: lokale (Teil-)Fallbasis oder entfernte Partitionen
         CBREngine cbrEngine = CBREngine.getInstance();
-        cbrEngine.init();
+        if (shardAddresses != null) {
+            ScatterGatherRetrieval scatterGather = new ScatterGatherRetrieval(ScatterGatherRetrieval.parseShards(shardAddresses), shardDeadline);
+            cbrEngine.useShards(scatterGather);
+            System.out.println("INFO: Front-Knoten für " + scatterGather.getShardCount() + " Partitionen (Frist "
+                    + shardDeadline.toMillis() + " ms)");
+        } else {
+            cbrEngine.init(projectPath, partition[0], partition[1]);
+        }
+
+        // Betrieb als Partition: nur Anfragen des Front-Knotens beantworten
+        if (shardServerPort >= 0) {
+            if (cbrEngine.getCaseBase() == null) {
+                System.out.println("ERROR: Partition konnte nicht geladen werden.");
+                return;
+            }
+            try {
+                new ShardServer(shardServerPort, cbrEngine).run();
+            } catch (IOException e) {
+                System.out.println("ERROR: Fehler beim Starten der Partition: " + e.getMessage());
+            }
+            return;
+        }
+
+        // Weitere Projekte, die Anfragen über das Feld "project" wählen
+        if (additionalProjects != null) {
+            registerProjects(additionalProjects);
+        }
+
+        // Retrieval-Verfahren für alle Projekte
+        cbrEngine.setRetrievalMode(retrievalMode);
+        for (String projectName : CBREngine.getProjectNames()) {
+            CBREngine.getInstance(projectName).setRetrievalMode(retrievalMode);
+        }
+        System.out.println("INFO: Retrieval-Verfahren: " + retrievalMode);
+
+        // Spekulative Vorausberechnung der nächsten Anfragen im Leerlauf
+        QuerySpeculator speculator = new QuerySpeculator(cbrEngine);
+        speculator.start();
+
+        // Gemeinsame Anfrageverarbeitung für TCP und Shared Memory
+        RequestProcessor processor = new RequestProcessor(cbrEngine, speculator);
+
+        if (shmPath != null) {
+            try {
+                new SharedMemoryServer(shmPath, SharedMemoryServer.DEFAULT_SLOT_COUNT, processor).start();
+            } catch (IOException e) {
+                System.out.println("ERROR: Shared-Memory-Transport konnte nicht gestartet werden: " + e.getMessage());
+            }
+        }
+        if (replayLog != null) {
+            try {
+                processor.recordReplay(replayLog);
+            } catch (IOException e) {
+                System.out.println("ERROR: Aufzeichnung konnte nicht gestartet werden: " + e.getMessage());
+            }
+        }
+
+        System.out.println("INFO: Maximal " + limits.getMaxConnections() + " Verbindungen, Leerlauf-Timeout "
+                + limits.getIdleTimeoutMillis() / 1000 + " s, maximale Anfragegröße " + limits.getMaxFrameBytes()
+                + " Bytes (Pufferspeicher höchstens " + limits.getMaxBufferMemory() / 1024 + " KiB)");
 
         try (ServerSocket serverSocket = new ServerSocket(portNumber)) {
             System.out.println("INFO: Server gestartet, wartet auf Verbindungen...");
@@ -38,77 +226,109 @@ public class Main {
             // Endlosschleife, um eingehende Client-Verbindungen zu akzeptieren
             while (true) {
                 Socket clientSocket = serverSocket.accept(); // Verbindung akzeptieren
+
+                // Verbindungsgrenze prüfen
+                ConnectionLimits.Lease lease = limits.tryAcquire();
+                if (lease == null) {
+                    rejectClient(clientSocket);
+                    continue;
+                }
+
                 System.out.println("INFO: Verbunden mit " + clientSocket.getRemoteSocketAddress());
+                ConnectionAcceptedEvent acceptedEvent = new ConnectionAcceptedEvent();
+                if (acceptedEvent.shouldCommit()) {
+                    acceptedEvent.connection = String.valueOf(clientSocket.getRemoteSocketAddress());
+                    acceptedEvent.transport = TRANSPORT;
+                    acceptedEvent.commit();
+                }
 
                 // Jede Client-Verbindung wird in einem neuen Thread verarbeitet
-                new Thread(() -> handleClient(clientSocket, cbrEngine)).start();
+                new Thread(() -> handleClient(clientSocket, lease, limits, processor, cbrEngine, speculator)).start();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (IOException e) {
             System.out.println("ERROR: Fehler beim Starten des Servers: " + e.getMessage());
         }
     }
 
+    /**
+     * Registriert weitere Projekte, die Anfragen über das Feld "project" wählen können.
+     *
+     * @param projects Kommagetrennte Liste im Format {@code <name>=<pfad.prj>[#<konzept>[#<fallbasis>]]}
+     */
+    private static void registerProjects(String projects) {
+        for (String entry : projects.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                System.out.println("ERROR: Ungültige Projektangabe (erwartet <name>=<pfad.prj>[#<konzept>[#<fallbasis>]]): " + entry);
+                continue;
+            }
+            String[] parts = entry.substring(separator + 1).split("#");
+            String name = entry.substring(0, separator).trim();
+            try {
+                CBREngine.register(name, parts[0].trim(),
+                        parts.length > 1 ? parts[1].trim() : null,
+                        parts.length > 2 ? parts[2].trim() : null);
+                System.out.println("INFO: Projekt '" + name + "' registriert.");
+            } catch (IllegalArgumentException e) {
+                System.out.println("ERROR: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Verarbeitung eines einzelnen Client-Sockets.
      * Diese Methode liest Client-Anfragen, verarbeitet sie und sendet Antworten zurück.
+     * Die Verbindung wird geschlossen, wenn der Client innerhalb des Leerlauf-Timeouts keine Anfrage
+     * sendet oder eine Anfrage die maximale Größe überschreitet.
      *
      * @param clientSocket Der Socket, der die Verbindung zum Client repräsentiert.
-     * @param cbrEngine    Die Instanz des CBR-Systems zur Fallabfrage und Verarbeitung.
+     * @param lease        Die Lese- und Schreibpuffer der Verbindung (werden beim Schließen zurückgegeben).
+     * @param limits       Die Begrenzungen für TCP-Verbindungen.
+     * @param processor    Gemeinsame Verarbeitung der Anfragen (identisch für alle Transportwege).
+     * @param cbrEngine    Die Instanz des CBR-Systems (für Metriken).
+     * @param speculator   Der Speculator für die Vorausberechnung (für Metriken).
      */
-    private static void handleClient(Socket clientSocket, CBREngine cbrEngine) {
+    private static void handleClient(Socket clientSocket, ConnectionLimits.Lease lease, ConnectionLimits limits,
+                                     RequestProcessor processor, CBREngine cbrEngine, QuerySpeculator speculator) {
+        ConnectionClosedEvent closedEvent = new ConnectionClosedEvent();
+        closedEvent.begin();
         try (
-                BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream())); // Eingangsdaten lesen
-                PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true) // Ausgangsdaten schreiben
+                FrameReader in = new FrameReader(clientSocket.getInputStream(), lease.getReadBuffer()); // Eingangsdaten lesen
+                PrintWriter out = new PrintWriter(new FrameWriter(clientSocket.getOutputStream(), lease.getWriteBuffer()), true) // Ausgangsdaten schreiben
         ) {
             System.out.println("INFO: Client-Verbindung wird verarbeitet: " + clientSocket.getRemoteSocketAddress());
+            clientSocket.setSoTimeout(limits.getIdleTimeoutMillis());
+            Response responseHandler = new Response(out);
 
-            String jsonRequest;
-            while ((jsonRequest = in.readLine()) != null) { // Anfrage lesen
-                System.out.println("INFO: Empfangene Anfrage: " + jsonRequest);
-
-                try {
-                    // JSON-String in eine Request-Instanz umwandeln
-                    Request request = Request.fromFlatJson(jsonRequest);
-
-                    if (!request.isValid()) { // Gültigkeit der Anfrage überprüfen
-                        System.out.println("WARNING: Ungültige Anfrage: " + jsonRequest);
-                        out.println("Ungültige Anfrage: Überprüfen Sie die Daten.");
-                        continue;
+            try {
+                String jsonRequest;
+                while ((jsonRequest = in.readLine()) != null) { // Anfrage lesen
+                    // Anfrage verarbeiten und Antwort senden
+                    String response = processor.process(clientSocket.getRemoteSocketAddress(), jsonRequest);
+                    ResponseWriteEvent writeEvent = new ResponseWriteEvent();
+                    writeEvent.begin();
+                    responseHandler.sendResponse(response);
+                    writeEvent.end();
+                    if (writeEvent.shouldCommit()) {
+                        writeEvent.connection = String.valueOf(clientSocket.getRemoteSocketAddress());
+                        writeEvent.responseBytes = response.getBytes(StandardCharsets.UTF_8).length;
+                        writeEvent.commit();
                     }
-
-                    // Extrahieren des Spielstatus und der Attribut-Werte-Paare
-                    GameStatus gameStatus = request.gameStatus();
-                    Map<String, String> queryAttributes = GameStatusProcessor.extractAttributes(gameStatus);
-
-                    // Fälle mit Ähnlichkeitswerten abrufen
-                    Map<String, Pair<String, Double>> categorizedCasesWithSimilarity = cbrEngine.retrieveAndCategorizeCases(queryAttributes);
-
-                    System.out.println("INFO: Abgerufene Fälle mit Ähnlichkeit: " + categorizedCasesWithSimilarity);
-
-                    // Erstelle die Antwort mit Ähnlichkeitswerten
-                    Map<String, Double> similarityResults = categorizedCasesWithSimilarity.entrySet().stream()
-                            .collect(Collectors.toMap(
-                                    Map.Entry::getKey, // Fallname
-                                    entry -> entry.getValue().getSecond() // Ähnlichkeitswert
-                            ));
-
-                    Map<String, String> categorizedCases = categorizedCasesWithSimilarity.entrySet().stream()
-                            .collect(Collectors.toMap(
-                                    Map.Entry::getKey,
-                                    entry -> entry.getValue().getFirst()
-                            ));
-
-                    // Formatieren und Senden der kombinierten Antwort
-                    Response responseHandler = new Response(out);
-                    String combinedResponse = responseHandler.formatCombinedResponse(similarityResults, categorizedCases);
-                    responseHandler.sendResponse(combinedResponse);
-
-                } catch (JsonSyntaxException e) {
-                    // Fehlerhafte JSON-Anfragen behandeln
-                    System.out.println("ERROR: Fehlerhafte JSON-Anfrage: " + jsonRequest);
-                    out.println("Ungültige Anfrage: Überprüfen Sie die JSON-Daten.");
+                    closedEvent.requests++;
                 }
+            } catch (FrameTooLargeException e) {
+                // Zu große Anfragen werden nicht weiter gelesen, die Verbindung wird geschlossen
+                System.out.println("WARNING: " + e.getMessage() + " (" + clientSocket.getRemoteSocketAddress() + ")");
+                responseHandler.sendResponse("Ungültige Anfrage: " + e.getMessage() + ".");
             }
+        } catch (SocketTimeoutException e) {
+            System.out.println("INFO: Keine Anfrage von " + clientSocket.getRemoteSocketAddress() + " seit "
+                    + limits.getIdleTimeoutMillis() / 1000 + " s, Verbindung wird geschlossen.");
         } catch (IOException e) {
             // Fehler bei der Socket-Kommunikation behandeln
             System.out.println("ERROR: I/O Fehler bei " + clientSocket.getRemoteSocketAddress() + ": " + e.getMessage());
@@ -117,9 +337,75 @@ public class Main {
             try {
                 clientSocket.close();
                 System.out.println("INFO: Verbindung mit " + clientSocket.getRemoteSocketAddress() + " geschlossen.");
+                closedEvent.end();
+                if (closedEvent.shouldCommit()) {
+                    closedEvent.connection = String.valueOf(clientSocket.getRemoteSocketAddress());
+                    closedEvent.transport = TRANSPORT;
+                    closedEvent.commit();
+                }
+                processor.connectionClosed(clientSocket.getRemoteSocketAddress());
             } catch (IOException e) {
                 System.out.println("ERROR: Fehler beim Schließen des Sockets: " + e.getMessage());
+            } finally {
+                // Puffer und Verbindungsplatz freigeben
+                lease.close();
+                printMetrics(cbrEngine, speculator, limits);
             }
         }
     }
+
+    /**
+     * Lehnt eine Verbindung ab, weil die maximale Anzahl gleichzeitiger Verbindungen erreicht ist.
+     *
+     * @param clientSocket Der Socket des abgelehnten Clients.
+     */
+    private static void rejectClient(Socket clientSocket) {
+        System.out.println("WARNING: Verbindung von " + clientSocket.getRemoteSocketAddress()
+                + " abgelehnt: maximale Anzahl an Verbindungen erreicht.");
+        try (clientSocket) {
+            OutputStream out = clientSocket.getOutputStream();
+            out.write(REJECT_MESSAGE);
+            out.flush();
+        } catch (IOException e) {
+            // Client hat die Verbindung bereits getrennt
+        }
+    }
+
+    /**
+     * Gibt die Metriken der Zusammenfassung identischer Anfragen, des Ergebnis-Caches,
+     * der spekulativen Vorausberechnung und des verteilten Retrievals aus.
+     *
+     * @param cbrEngine  Die Instanz des CBR-Systems
+     * @param speculator Der Speculator für die Vorausberechnung
+     * @param limits     Die Begrenzungen für TCP-Verbindungen
+     */
+    private static void printMetrics(CBREngine cbrEngine, QuerySpeculator speculator, ConnectionLimits limits) {
+        SingleFlight<?, ?> inFlightQueries = cbrEngine.getInFlightQueries();
+        System.out.printf("INFO: Zusammengefasste Anfragen: %d von %d (%.1f%%)%n",
+                inFlightQueries.getCoalescedCalls(), inFlightQueries.getCalls(), inFlightQueries.getCoalescingRate() * 100);
+
+        ResultCache<?, ?> resultCache = cbrEngine.getResultCache();
+        System.out.printf("INFO: Ergebnis-Cache: %d Treffer (%.1f%%), %d Einträge, %d vorausberechnet (%d mit laufender Anfrage zusammengefasst)%n",
+                resultCache.getHits(), resultCache.getHitRate() * 100, resultCache.size(), speculator.getPrefetched(),
+                inFlightQueries.getBackgroundCoalescedCalls());
+        for (String projectName : CBREngine.getProjectNames()) {
+            ResultCache<?, ?> projectCache = CBREngine.getInstance(projectName).getResultCache();
+            System.out.printf("INFO: Ergebnis-Cache '%s': %d Treffer (%.1f%%), %d Einträge%n",
+                    projectName, projectCache.getHits(), projectCache.getHitRate() * 100, projectCache.size());
+        }
+
+        if (cbrEngine.getAverageAttributeEvaluations() > 0) {
+            System.out.printf("INFO: Branch-and-Bound: durchschnittlich %.1f Attributauswertungen je Anfrage%n",
+                    cbrEngine.getAverageAttributeEvaluations());
+        }
+
+        System.out.printf("INFO: Verbindungen: %d von %d aktiv, %d abgelehnt%n",
+                limits.getActiveConnections(), limits.getMaxConnections(), limits.getRejectedConnections());
+
+        ScatterGatherRetrieval scatterGather = cbrEngine.getScatterGather();
+        if (scatterGather != null) {
+            System.out.printf("INFO: Verteilte Anfragen: %d, davon %d unvollständig (%d Partitionen ausgelassen)%n",
+                    scatterGather.getQueries(), scatterGather.getPartialResults(), scatterGather.getMissedShards());
+        }
+    }
 }
@@ -0,0 +1,235 @@
+package benchmark;
+
+import cbr_util.BranchAndBoundRetrieval;
+import cbr_util.CaseColumns;
+import cbr_util.ScalarSimilarityKernel;
+import cbr_util.SimilarityKernel;
+import de.dfki.mycbr.core.DefaultCaseBase;
+import de.dfki.mycbr.core.Project;
+import de.dfki.mycbr.core.casebase.Instance;
+import de.dfki.mycbr.core.model.Concept;
+import de.dfki.mycbr.core.model.IntegerDesc;
+import de.dfki.mycbr.core.retrieval.Retrieval;
+import de.dfki.mycbr.core.retrieval.Retrieval.RetrievalMethod;
+import de.dfki.mycbr.core.similarity.AmalgamationFct;
+import de.dfki.mycbr.core.similarity.IntegerFct;
+import de.dfki.mycbr.core.similarity.Similarity;
+import de.dfki.mycbr.core.similarity.config.AmalgamationConfig;
+import de.dfki.mycbr.core.similarity.config.NumberConfig;
+import de.dfki.mycbr.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Selbsttest für das Retrieval über die spaltenorientierte Fallbasis.
+ * Erstellt ein myCBR-Projekt im Speicher (verschiedene Funktionstypen, doppelte Fälle für Gleichstände)
+ * und prüft für zufällige Anfragen – auch mit fehlenden Attributen und Werten außerhalb des
+ * Wertebereichs –, dass
+ * <ul>
+ *     <li>der skalare und der schnellste verfügbare Kernel dieselben Ähnlichkeiten wie das
+ *     myCBR-Retrieval berechnen und</li>
+ *     <li>das Branch-and-Bound-Retrieval dieselben Top-k-Fälle (in Fallbasis-Reihenfolge bei
+ *     Gleichstand) liefert wie ein vollständiger Durchlauf.</li>
+ * </ul>
+ *
+ * <p>
+ * Start: {@code java --add-modules jdk.incubator.vector benchmark.RetrievalSelfCheck [Anfragen]};
+ * Rückgabewert 1 bei Abweichungen.
+ * </p>
+ */
+public class RetrievalSelfCheck {
+
+    /**
+     * Erlaubte Abweichung der Ähnlichkeiten zu myCBR (Rundung, Vector-API-Potenz)
+     */
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * Anzahl der Fälle der synthetischen Fallbasis
+     */
+    private static final int CASE_COUNT = 300;
+
+    /**
+     * Geprüfte Werte für k
+     */
+    private static final int[] TOP_K = {1, 3, 10};
+
+    private static final String[] NAMES = {"Minerals", "Gas", "SupplyUsed", "Arbeiter", "Gateways"};
+    private static final int[] MAX = {2000, 1000, 200, 80, 6};
+
+    public static void main(String[] args) throws Exception {
+        int queryCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Random random = new Random(7);
+
+        Project project = new Project();
+        Concept concept = project.createTopConcept("Ressourcenentscheidungen");
+        IntegerDesc[] descs = createModel(concept);
+        DefaultCaseBase caseBase = createCases(project, concept, descs, random);
+
+        CaseColumns caseColumns = CaseColumns.build(concept, caseBase);
+        BranchAndBoundRetrieval branchAndBound = new BranchAndBoundRetrieval(caseColumns);
+        Instance[] cases = caseColumns.getCases();
+        Map<Instance, Integer> caseIndex = new IdentityHashMap<>();
+        for (int i = 0; i < cases.length; i++) {
+            caseIndex.put(cases[i], i);
+        }
+
+        SimilarityKernel scalar = new ScalarSimilarityKernel();
+        SimilarityKernel best = SimilarityKernel.create();
+        double maxDeviation = 0;
+        int failures = 0;
+
+        for (int q = 0; q < queryCount; q++) {
+            Map<String, String> query = randomQuery(random, cases);
+
+            // Referenz: myCBR-Retrieval wie im ursprünglichen CBREngine.retrieveCases
+            double[] reference = retrieveWithMyCbr(concept, caseBase, query, caseIndex);
+            double[] scalarScores = caseColumns.score(query, scalar);
+            double[] bestScores = caseColumns.score(query, best);
+            for (int i = 0; i < cases.length; i++) {
+                double deviation = Math.max(Math.abs(reference[i] - scalarScores[i]), Math.abs(reference[i] - bestScores[i]));
+                if (!(deviation <= TOLERANCE)) {
+                    failures++;
+                    System.out.println("ERROR: Abweichung zu myCBR bei " + cases[i].getName() + " für " + query
+                            + ": myCBR " + reference[i] + ", skalar " + scalarScores[i] + ", " + best + " " + bestScores[i]);
+                    break;
+                }
+                maxDeviation = Math.max(maxDeviation, deviation);
+            }
+
+            // Branch-and-Bound gegen vollständigen skalaren Durchlauf
+            for (int k : TOP_K) {
+                int[] expected = topK(scalarScores, k);
+                List<Pair<Instance, Similarity>> actual = branchAndBound.retrieve(query, k);
+                boolean same = actual.size() == expected.length;
+                for (int r = 0; same && r < expected.length; r++) {
+                    same = caseIndex.get(actual.get(r).getFirst()) == expected[r]
+                            && actual.get(r).getSecond().getValue() == Similarity.get(scalarScores[expected[r]]).getValue();
+                }
+                if (!same) {
+                    failures++;
+                    System.out.println("ERROR: Branch-and-Bound (k=" + k + ") weicht ab für " + query + ": erwartet "
+                            + Arrays.toString(expected) + ", erhalten " + actual);
+                }
+            }
+        }
+
+        System.out.println("INFO: " + queryCount + " Anfragen, " + cases.length + " Fälle, Kernel " + best
+                + ", maximale Abweichung zu myCBR " + maxDeviation);
+        if (failures > 0) {
+            System.out.println("ERROR: " + failures + " Abweichungen gefunden.");
+            System.exit(1);
+        }
+        System.out.println("INFO: Selbsttest erfolgreich.");
+    }
+
+    /**
+     * Legt die Attribute mit verschiedenen Funktionstypen und die gewichtete Summe an.
+     */
+    static IntegerDesc[] createModel(Concept concept) throws Exception {
+        NumberConfig[][] types = {
+                {NumberConfig.POLYNOMIAL_WITH, NumberConfig.POLYNOMIAL_WITH},
+                {NumberConfig.POLYNOMIAL_WITH, NumberConfig.POLYNOMIAL_WITH},
+                {NumberConfig.STEP_AT, NumberConfig.STEP_AT},
+                {NumberConfig.POLYNOMIAL_WITH, NumberConfig.CONSTANT},
+                {NumberConfig.SMOOTH_STEP_AT, NumberConfig.POLYNOMIAL_WITH}
+        };
+        double[][] parameters = {{1.0, 1.0}, {2.0, 0.5}, {-10.0, 10.0}, {1.5, 0.5}, {-2.0, 3.0}};
+        double[] weights = {3.0, 2.0, 1.0, 1.0, 0.5};
+
+        AmalgamationFct amalgamation = concept.addAmalgamationFct(AmalgamationConfig.WEIGHTED_SUM, "gewichtet", true);
+        IntegerDesc[] descs = new IntegerDesc[NAMES.length];
+        for (int a = 0; a < NAMES.length; a++) {
+            descs[a] = new IntegerDesc(concept, NAMES[a], 0, MAX[a]);
+            IntegerFct fct = descs[a].addIntegerFct("f" + NAMES[a], true);
+            fct.setFunctionTypeL(types[a][0]);
+            fct.setFunctionParameterL(parameters[a][0]);
+            fct.setFunctionTypeR(types[a][1]);
+            fct.setFunctionParameterR(parameters[a][1]);
+            amalgamation.setActiveFct(descs[a], fct);
+            amalgamation.setWeight(descs[a], weights[a]);
+            amalgamation.setActive(descs[a], true);
+        }
+        concept.setActiveAmalgamFct(amalgamation);
+        return descs;
+    }
+
+    /**
+     * Erzeugt zufällige Fälle; jeder zehnte Fall ist eine Kopie eines früheren Falls (Gleichstand).
+     */
+    static DefaultCaseBase createCases(Project project, Concept concept, IntegerDesc[] descs, Random random) throws Exception {
+        DefaultCaseBase caseBase = project.createDefaultCB("Fallbasis");
+        int[][] values = new int[CASE_COUNT][NAMES.length];
+        for (int c = 0; c < CASE_COUNT; c++) {
+            Instance instance = concept.addInstance("Fall " + c);
+            for (int a = 0; a < NAMES.length; a++) {
+                values[c][a] = c > 0 && c % 10 == 0 ? values[random.nextInt(c)][a] : random.nextInt(MAX[a] + 1);
+                instance.addAttribute(descs[a], values[c][a]);
+            }
+            caseBase.addCase(instance);
+        }
+        return caseBase;
+    }
+
+    /**
+     * Erzeugt eine Anfrage: Werte eines Falls (Gleichstand), zufällige Werte im und außerhalb des
+     * Wertebereichs oder fehlende Attribute.
+     */
+    static Map<String, String> randomQuery(Random random, Instance[] cases) {
+        Map<String, String> query = new HashMap<>();
+        Instance source = cases[random.nextInt(cases.length)];
+        boolean copyCase = random.nextInt(4) == 0;
+        for (int a = 0; a < NAMES.length; a++) {
+            int kind = random.nextInt(10);
+            if (copyCase) {
+                query.put(NAMES[a], source.getAttForDesc(source.getConcept().getAllAttributeDescs().get(NAMES[a])).getValueAsString());
+            } else if (kind == 0) {
+                continue; // Attribut fehlt
+            } else if (kind <= 2) {
+                // Außerhalb des Wertebereichs
+                query.put(NAMES[a], String.valueOf(random.nextBoolean() ? -1 - random.nextInt(MAX[a]) : MAX[a] + 1 + random.nextInt(MAX[a])));
+            } else {
+                query.put(NAMES[a], String.valueOf(random.nextInt(MAX[a] + 1)));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Berechnet die Ähnlichkeiten aller Fälle über das myCBR-Retrieval.
+     */
+    private static double[] retrieveWithMyCbr(Concept concept, DefaultCaseBase caseBase, Map<String, String> query,
+                                              Map<Instance, Integer> caseIndex) throws Exception {
+        Retrieval retrieval = new Retrieval(concept, caseBase);
+        retrieval.setRetrievalMethod(RetrievalMethod.RETRIEVE_SORTED);
+        Instance queryInstance = retrieval.getQueryInstance();
+        for (Map.Entry<String, String> entry : query.entrySet()) {
+            queryInstance.addAttribute(concept.getAllAttributeDescs().get(entry.getKey()), entry.getValue());
+        }
+        retrieval.start();
+
+        double[] scores = new double[caseIndex.size()];
+        for (Pair<Instance, Similarity> result : retrieval.getResult()) {
+            scores[caseIndex.get(result.getFirst())] = result.getSecond().getValue();
+        }
+        return scores;
+    }
+
+    /**
+     * Ermittelt die k besten Fälle eines vollständigen Durchlaufs (bei Gleichstand der frühere Fall).
+     */
+    private static int[] topK(double[] scores, int k) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            indices.add(i);
+        }
+        indices.sort((i1, i2) -> Double.compare(scores[i2], scores[i1]));
+        return indices.stream().limit(k).mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,168 @@
+package benchmark;
+
+import cbr_util.CBREngine;
+import cluster.ScatterGatherResult;
+import cluster.ScatterGatherRetrieval;
+import cluster.ShardClient;
+import cluster.ShardHit;
+import cluster.ShardServer;
+import de.dfki.mycbr.core.Project;
+import de.dfki.mycbr.core.casebase.Instance;
+import de.dfki.mycbr.core.model.Concept;
+import de.dfki.mycbr.core.model.IntegerDesc;
+import de.dfki.mycbr.core.similarity.Similarity;
+import de.dfki.mycbr.io.XMLExporter;
+import de.dfki.mycbr.util.Pair;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Selbsttest für das verteilte Retrieval. Speichert die synthetische Fallbasis aus
+ * {@link RetrievalSelfCheck} als Projektdatei, startet im selben Prozess mehrere Partitionen
+ * ({@link ShardServer} über Loopback) und prüft für zufällige Anfragen, dass das Scatter-Gather-Ergebnis
+ * dieselben Top-k-Fälle mit denselben Ähnlichkeiten und in derselben Reihenfolge – auch bei
+ * Gleichstand – liefert wie ein einzelner Knoten mit der vollständigen Fallbasis.
+ *
+ * <p>
+ * Start: {@code java --add-modules jdk.incubator.vector benchmark.ScatterGatherSelfCheck [Anfragen]};
+ * Rückgabewert 1 bei Abweichungen.
+ * </p>
+ */
+public class ScatterGatherSelfCheck {
+
+    /**
+     * Anzahl der Partitionen
+     */
+    private static final int PARTITIONS = 3;
+
+    /**
+     * Geprüfte Werte für k
+     */
+    private static final int[] TOP_K = {1, 3, 10};
+
+    /**
+     * Großzügige Frist, damit nur Abweichungen und keine Zeitüberschreitungen gemeldet werden
+     */
+    private static final Duration DEADLINE = Duration.ofSeconds(5);
+
+    /**
+     * Maximale Anzahl der Versuche, bis eine Partition Verbindungen annimmt (je 50 ms)
+     */
+    private static final int STARTUP_ATTEMPTS = 100;
+
+    public static void main(String[] args) throws Exception {
+        int queryCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        Random random = new Random(11);
+
+        // Synthetische Fallbasis als Projektdatei speichern
+        Path directory = Files.createTempDirectory("cbr-selfcheck");
+        String projectPath = directory.resolve("fallbasis.prj").toString();
+        Project project = new Project();
+        Concept concept = project.createTopConcept("Ressourcenentscheidungen");
+        IntegerDesc[] descs = RetrievalSelfCheck.createModel(concept);
+        RetrievalSelfCheck.createCases(project, concept, descs, random);
+        XMLExporter.save(project, projectPath);
+
+        int failures = 0;
+        List<ShardClient> shards = new ArrayList<>();
+        try {
+            CBREngine single = CBREngine.register("einzelknoten", projectPath, null, null);
+            for (int p = 0; p < PARTITIONS; p++) {
+                CBREngine partition = CBREngine.register("partition-" + p, projectPath, null, null);
+                partition.init(projectPath, p, PARTITIONS);
+                shards.add(startShard(partition));
+            }
+            ScatterGatherRetrieval scatterGather = new ScatterGatherRetrieval(shards, DEADLINE);
+
+            Instance[] cases = single.getCaseColumns().getCases();
+            for (int q = 0; q < queryCount; q++) {
+                Map<String, String> query = RetrievalSelfCheck.randomQuery(random, cases);
+                for (int k : TOP_K) {
+                    List<Pair<Instance, Similarity>> expected = single.retrieveTopCases(query, k);
+                    ScatterGatherResult actual = scatterGather.retrieve(query, k);
+                    if (!actual.isComplete() || !sameHits(expected, actual.hits())) {
+                        failures++;
+                        System.out.println("ERROR: Scatter-Gather (k=" + k + ") weicht ab für " + query + ": erwartet "
+                                + expected + ", erhalten " + actual);
+                    }
+                }
+            }
+            System.out.println("INFO: " + queryCount + " Anfragen, " + cases.length + " Fälle, " + PARTITIONS
+                    + " Partitionen, unvollständige Ergebnisse: " + scatterGather.getPartialResults());
+        } finally {
+            shards.forEach(ShardClient::close);
+            File[] files = directory.toFile().listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+
+        if (failures > 0) {
+            System.out.println("ERROR: " + failures + " Abweichungen gefunden.");
+            System.exit(1);
+        }
+        System.out.println("INFO: Selbsttest erfolgreich.");
+        System.exit(0);
+    }
+
+    /**
+     * Startet eine Partition auf einem freien Port und wartet, bis sie Verbindungen annimmt.
+     *
+     * @return Der Client für die Partition
+     */
+    private static ShardClient startShard(CBREngine partition) throws Exception {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        ShardServer server = new ShardServer(port, partition);
+        Thread thread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                System.out.println("ERROR: Partition auf Port " + port + " konnte nicht gestartet werden: " + e.getMessage());
+            }
+        }, "shard-server-" + port);
+        thread.setDaemon(true);
+        thread.start();
+
+        for (int attempt = 0; attempt < STARTUP_ATTEMPTS; attempt++) {
+            try {
+                new Socket("localhost", port).close();
+                return new ShardClient("localhost", port);
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IOException("Partition auf Port " + port + " nimmt keine Verbindungen an");
+    }
+
+    /**
+     * Vergleicht Fallnamen, Ähnlichkeiten und Reihenfolge.
+     */
+    private static boolean sameHits(List<Pair<Instance, Similarity>> expected, List<ShardHit> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (!expected.get(i).getFirst().getName().equals(actual.get(i).caseName())
+                    || expected.get(i).getSecond().getValue() != actual.get(i).similarity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,201 @@
+package benchmark;
+
+import transport.RequestProcessor;
+import transport.SharedMemoryClient;
+import transport.SharedMemoryServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selbsttest für den Shared-Memory-Transport. Startet einen Server mit einem Slot und einer
+ * Echo-Verarbeitung und prüft, dass
+ * <ul>
+ *     <li>nach einer abgelaufenen Anfrage die nächste Anfrage ihre eigene Antwort erhält und nicht
+ *     die verspätete Antwort der vorherigen,</li>
+ *     <li>eine Antwort, die nicht in den Ringpuffer passt, als Fehlermeldung beantwortet wird und der
+ *     Slot weiter nutzbar bleibt und</li>
+ *     <li>der Slot eines Client-Prozesses, der ohne {@code close()} beendet wird, wieder freigegeben wird.</li>
+ * </ul>
+ *
+ * <p>
+ * Start: {@code java benchmark.SharedMemorySelfCheck}; Rückgabewert 1 bei Abweichungen.
+ * </p>
+ */
+public class SharedMemorySelfCheck {
+
+    /**
+     * Bearbeitungszeit der langsamen Anfrage in Millisekunden
+     */
+    private static final long SLOW_MILLIS = 300;
+
+    /**
+     * Maximale Wartezeit auf die Freigabe des Slots eines beendeten Clients in Sekunden
+     */
+    private static final long RECLAIM_SECONDS = 10;
+
+    /**
+     * Echo-Verarbeitung ohne CBR-System; Anfragen mit "langsam" werden verzögert beantwortet.
+     */
+    private static final class EchoProcessor extends RequestProcessor {
+
+        EchoProcessor() {
+            super(null, null);
+        }
+
+        @Override
+        public String process(Object connection, String jsonRequest) {
+            if (jsonRequest.contains("langsam")) {
+                try {
+                    Thread.sleep(SLOW_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (jsonRequest.contains("gross")) {
+                return "x".repeat(SharedMemoryServer.DEFAULT_RING_CAPACITY);
+            }
+            return "Antwort auf " + jsonRequest;
+        }
+
+        @Override
+        public void connectionClosed(Object connection) {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("--client")) {
+            // Kindprozess: Slot belegen und ohne Abmeldung auf das Beenden warten
+            new SharedMemoryClient(Path.of(args[1]));
+            System.out.println("verbunden");
+            Thread.sleep(Long.MAX_VALUE);
+        }
+
+        Path path = Files.createTempFile("cbr-selfcheck", ".shm");
+        int failures = 0;
+        try {
+            new SharedMemoryServer(path, 1, new EchoProcessor()).start();
+            failures += checkTimeout(path);
+            failures += checkOversizedResponse(path);
+            failures += checkReclaim(path);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+
+        if (failures > 0) {
+            System.out.println("ERROR: " + failures + " Abweichungen gefunden.");
+            System.exit(1);
+        }
+        System.out.println("INFO: Selbsttest erfolgreich.");
+    }
+
+    /**
+     * Sendet eine Anfrage, deren Wartezeit abläuft, und anschließend eine zweite Anfrage.
+     *
+     * @return Anzahl der Abweichungen
+     */
+    private static int checkTimeout(Path path) throws IOException {
+        int failures = 0;
+        try (SharedMemoryClient client = new SharedMemoryClient(path)) {
+            try {
+                String response = client.request("{\"langsam\":1}", 50, TimeUnit.MILLISECONDS);
+                failures++;
+                System.out.println("ERROR: Zeitüberschreitung erwartet, erhalten: " + response);
+            } catch (IOException e) {
+                System.out.println("INFO: Erste Anfrage abgelaufen: " + e.getMessage());
+            }
+
+            String expected = "Antwort auf {\"zweite\":2}";
+            String response = client.request("{\"zweite\":2}", 5, TimeUnit.SECONDS);
+            if (!expected.equals(response)) {
+                failures++;
+                System.out.println("ERROR: Falsche Antwort nach Zeitüberschreitung: " + response);
+            } else {
+                System.out.println("INFO: Zweite Anfrage erhielt ihre eigene Antwort.");
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Fordert eine Antwort an, die größer als der Ringpuffer ist, und anschließend eine normale Antwort.
+     *
+     * @return Anzahl der Abweichungen
+     */
+    private static int checkOversizedResponse(Path path) throws Exception {
+        int failures = 0;
+        try (SharedMemoryClient client = connect(path)) {
+            String response = client.request("{\"gross\":1}", 5, TimeUnit.SECONDS);
+            if (!response.startsWith("Ungültige Anfrage")) {
+                failures++;
+                System.out.println("ERROR: Fehlermeldung für zu große Antwort erwartet, erhalten: "
+                        + response.substring(0, Math.min(80, response.length())));
+            } else {
+                System.out.println("INFO: Zu große Antwort gemeldet: " + response);
+            }
+
+            String expected = "Antwort auf {\"danach\":2}";
+            response = client.request("{\"danach\":2}", 5, TimeUnit.SECONDS);
+            if (!expected.equals(response)) {
+                failures++;
+                System.out.println("ERROR: Falsche Antwort nach zu großer Antwort: " + response);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Verbindet sich, sobald der Server den Slot des vorherigen Clients freigegeben hat.
+     */
+    private static SharedMemoryClient connect(Path path) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(RECLAIM_SECONDS);
+        while (true) {
+            try {
+                return new SharedMemoryClient(path);
+            } catch (IOException e) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    /**
+     * Startet einen Client-Prozess, beendet ihn ohne Abmeldung und wartet, bis der einzige Slot
+     * wieder belegt werden kann.
+     *
+     * @return Anzahl der Abweichungen
+     */
+    private static int checkReclaim(Path path) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                SharedMemorySelfCheck.class.getName(), "--client", path.toString())
+                .redirectErrorStream(true).start();
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+            String line = output.readLine();
+            if (!"verbunden".equals(line)) {
+                System.out.println("ERROR: Client-Prozess konnte sich nicht verbinden: " + line);
+                return 1;
+            }
+        }
+        child.destroyForcibly().waitFor();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(RECLAIM_SECONDS);
+        while (System.nanoTime() - deadline < 0) {
+            try (SharedMemoryClient client = new SharedMemoryClient(path)) {
+                String response = client.request("{\"dritte\":3}", 5, TimeUnit.SECONDS);
+                System.out.println("INFO: Slot des beendeten Clients wieder belegt: " + response);
+                return 0;
+            } catch (IOException e) {
+                Thread.sleep(100);
+            }
+        }
+        System.out.println("ERROR: Slot des beendeten Clients wurde nicht freigegeben.");
+        return 1;
+    }
+}
@@ -0,0 +1,120 @@
+package benchmark;
+
+import cbr_util.AttributeColumn;
+import cbr_util.ScalarSimilarityKernel;
+import cbr_util.SimilarityKernel;
+import de.dfki.mycbr.core.similarity.config.NumberConfig;
+
+import java.util.Random;
+
+/**
+ * Benchmark für die Bewertung numerischer Attributspalten.
+ * Vergleicht den skalaren Kernel mit dem Vector-API-Kernel auf einer synthetischen Fallbasis
+ * mit den Attributen Minerals, Gas, SupplyUsed und Arbeiter und gibt die bewerteten Fälle
+ * pro Sekunde und Kern (ein Thread) aus.
+ *
+ * <p>
+ * Start: {@code java --add-modules jdk.incubator.vector benchmark.SimilarityKernelBenchmark [Fallanzahl]}
+ * </p>
+ */
+public class SimilarityKernelBenchmark {
+
+    /**
+     * Anzahl der Aufwärmdurchläufe vor der Messung
+     */
+    private static final int WARMUP_ROUNDS = 200;
+
+    /**
+     * Anzahl der gemessenen Durchläufe
+     */
+    private static final int MEASURED_ROUNDS = 1000;
+
+    public static void main(String[] args) {
+        int caseCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Random random = new Random(42);
+
+        // Synthetische Spalten mit den typischen myCBR-Funktionstypen (linear, Polynom, Stufe)
+        AttributeColumn[] columns = {
+                AttributeColumn.numeric("Minerals", 3.0, randomValues(random, caseCount, 2000), 2000,
+                        NumberConfig.POLYNOMIAL_WITH, 1.0, NumberConfig.POLYNOMIAL_WITH, 1.0),
+                AttributeColumn.numeric("Gas", 2.0, randomValues(random, caseCount, 1000), 1000,
+                        NumberConfig.POLYNOMIAL_WITH, 2.0, NumberConfig.POLYNOMIAL_WITH, 2.0),
+                AttributeColumn.numeric("SupplyUsed", 1.0, randomValues(random, caseCount, 200), 200,
+                        NumberConfig.STEP_AT, -10.0, NumberConfig.STEP_AT, 10.0),
+                AttributeColumn.numeric("Arbeiter", 1.0, randomValues(random, caseCount, 80), 80,
+                        NumberConfig.POLYNOMIAL_WITH, 1.0, NumberConfig.CONSTANT, 0.5)
+        };
+        double[] query = {850, 240, 46, 31};
+
+        System.out.println("INFO: Fälle: " + caseCount + ", Attribute: " + columns.length);
+
+        SimilarityKernel scalar = new ScalarSimilarityKernel();
+        double[] scalarScores = run(scalar, columns, query, caseCount);
+
+        SimilarityKernel best = SimilarityKernel.create();
+        if (best instanceof ScalarSimilarityKernel) {
+            System.out.println("WARNING: Modul " + SimilarityKernel.VECTOR_MODULE
+                    + " nicht geladen, Vector-API-Kernel wird nicht gemessen (--add-modules " + SimilarityKernel.VECTOR_MODULE + ").");
+            return;
+        }
+
+        double[] vectorScores = run(best, columns, query, caseCount);
+
+        // Abweichung zwischen beiden Kernels prüfen
+        double maxDeviation = 0;
+        for (int i = 0; i < caseCount; i++) {
+            maxDeviation = Math.max(maxDeviation, Math.abs(scalarScores[i] - vectorScores[i]));
+        }
+        System.out.println("INFO: Maximale Abweichung skalar/vektoriell: " + maxDeviation);
+    }
+
+    /**
+     * Misst einen Kernel und gibt die Ergebnisse des letzten Durchlaufs zurück.
+     *
+     * @param kernel    Der zu messende Kernel
+     * @param columns   Die numerischen Spalten
+     * @param query     Anfragewerte je Spalte
+     * @param caseCount Anzahl der Fälle
+     * @return Gewichtete Summen je Fall
+     */
+    private static double[] run(SimilarityKernel kernel, AttributeColumn[] columns, double[] query, int caseCount) {
+        double[] scores = new double[caseCount];
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            scores = score(kernel, columns, query, caseCount);
+        }
+
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            scores = score(kernel, columns, query, caseCount);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double casesPerSecond = (double) caseCount * MEASURED_ROUNDS / (elapsed / 1e9);
+        System.out.printf("INFO: %-28s %,15.0f Fälle/s pro Kern (%.3f ms je Anfrage)%n",
+                kernel + ":", casesPerSecond, elapsed / 1e6 / MEASURED_ROUNDS);
+        return scores;
+    }
+
+    /**
+     * Bewertet alle Spalten für eine Anfrage.
+     */
+    private static double[] score(SimilarityKernel kernel, AttributeColumn[] columns, double[] query, int caseCount) {
+        double[] scores = new double[caseCount];
+        for (int c = 0; c < columns.length; c++) {
+            kernel.accumulate(columns[c], query[c], scores);
+        }
+        return scores;
+    }
+
+    /**
+     * Erzeugt zufällige ganzzahlige Attributwerte.
+     */
+    private static double[] randomValues(Random random, int count, int max) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt(max + 1);
+        }
+        return values;
+    }
+}
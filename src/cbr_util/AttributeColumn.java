@@ -0,0 +1,291 @@
+package cbr_util;
+
+import de.dfki.mycbr.core.Project;
+import de.dfki.mycbr.core.casebase.Attribute;
+import de.dfki.mycbr.core.casebase.IntegerAttribute;
+import de.dfki.mycbr.core.model.AttributeDesc;
+import de.dfki.mycbr.core.model.IntegerDesc;
+import de.dfki.mycbr.core.similarity.AmalgamationFct;
+import de.dfki.mycbr.core.similarity.ISimFct;
+import de.dfki.mycbr.core.similarity.IntegerFct;
+import de.dfki.mycbr.core.similarity.Similarity;
+import de.dfki.mycbr.core.similarity.config.DistanceConfig;
+import de.dfki.mycbr.core.similarity.config.NumberConfig;
+
+/**
+ * Spalte eines Attributs über alle Fälle der Fallbasis.
+ * Numerische Attribute mit einer {@link IntegerFct} (Distanz "Differenz") werden zusätzlich als
+ * primitives {@code double[]} abgelegt, damit ein {@link SimilarityKernel} sie ohne myCBR-Objekte
+ * bewerten kann. Alle anderen Attribute werden über die lokale Ähnlichkeitsfunktion von myCBR bewertet.
+ */
+public final class AttributeColumn {
+
+    /**
+     * Name des Attributs (z. B. "Minerals")
+     */
+    private final String name;
+
+    /**
+     * Gewicht des Attributs in der gewichteten Summe
+     */
+    private final double weight;
+
+    /**
+     * Attributbeschreibung aus dem myCBR-Konzept (null bei synthetischen Spalten)
+     */
+    private final AttributeDesc desc;
+
+    /**
+     * Aktive lokale Ähnlichkeitsfunktion ({@link ISimFct} oder {@link AmalgamationFct})
+     */
+    private final Object fct;
+
+    /**
+     * Attributwerte der Fälle in der Reihenfolge der Fallbasis
+     */
+    private final Attribute[] caseAttributes;
+
+    /**
+     * Primitive Attributwerte der Fälle oder null, wenn die Spalte nicht numerisch bewertet werden kann
+     */
+    private final double[] numericValues;
+
+    // Wertebereich des Attributs; Anfragewerte außerhalb bewertet myCBR als "_unknown_"
+    private final double minValue;
+    private final double maxValue;
+
+    // Parameter der numerischen Ähnlichkeitsfunktion (entsprechen IntegerFct)
+    private final double diff;
+    private final NumberConfig leftType;
+    private final double leftParameter;
+    private final NumberConfig rightType;
+    private final double rightParameter;
+
+    private AttributeColumn(String name, double weight, AttributeDesc desc, Object fct, Attribute[] caseAttributes,
+                            double[] numericValues, double minValue, double maxValue, double diff,
+                            NumberConfig leftType, double leftParameter, NumberConfig rightType, double rightParameter) {
+        this.name = name;
+        this.weight = weight;
+        this.desc = desc;
+        this.fct = fct;
+        this.caseAttributes = caseAttributes;
+        this.numericValues = numericValues;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.diff = diff;
+        this.leftType = leftType;
+        this.leftParameter = leftParameter;
+        this.rightType = rightType;
+        this.rightParameter = rightParameter;
+    }
+
+    /**
+     * Erstellt eine Spalte aus den Attributwerten der Fälle.
+     * Die numerische Darstellung wird nur angelegt, wenn die Funktion eine {@link IntegerFct} mit
+     * Differenz-Distanz ist, das Attribut ein {@link IntegerDesc} ist und alle Fälle einen ganzzahligen
+     * Wert besitzen.
+     *
+     * @param desc           Attributbeschreibung
+     * @param fct            Aktive lokale Ähnlichkeitsfunktion
+     * @param weight         Gewicht des Attributs
+     * @param caseAttributes Attributwerte aller Fälle
+     * @return Die erstellte Spalte
+     */
+    static AttributeColumn of(AttributeDesc desc, Object fct, double weight, Attribute[] caseAttributes) {
+        if (fct != null && fct.getClass() == IntegerFct.class && desc instanceof IntegerDesc integerDesc && !desc.isMultiple()) {
+            IntegerFct integerFct = (IntegerFct) fct;
+            double[] values = new double[caseAttributes.length];
+            boolean numeric = integerFct.getDistanceFct() == DistanceConfig.DIFFERENCE;
+
+            for (int i = 0; numeric && i < caseAttributes.length; i++) {
+                if (caseAttributes[i] instanceof IntegerAttribute integerAttribute) {
+                    values[i] = integerAttribute.getValue();
+                } else {
+                    numeric = false; // Sonderwerte (z. B. "_undefined_") bewertet myCBR selbst
+                }
+            }
+
+            if (numeric) {
+                // Inhaltsgleiche Spalten anderer Projekte werden gemeinsam genutzt
+                return new AttributeColumn(desc.getName(), weight, desc, fct, caseAttributes, SharedModelPool.intern(values),
+                        integerDesc.getMin(), integerDesc.getMax(), integerFct.getDiff(), integerFct.getFunctionTypeL(), integerFct.getFunctionParameterL(),
+                        integerFct.getFunctionTypeR(), integerFct.getFunctionParameterR());
+            }
+        }
+        return new AttributeColumn(desc.getName(), weight, desc, fct, caseAttributes, null,
+                0, 0, 0, null, 0, null, 0);
+    }
+
+    /**
+     * Erstellt eine rein numerische Spalte ohne myCBR-Projekt, z. B. für Benchmarks.
+     *
+     * @param name           Name des Attributs
+     * @param weight         Gewicht des Attributs
+     * @param values         Attributwerte der Fälle
+     * @param diff           Wertebereich (Maximum - Minimum) des Attributs
+     * @param leftType       Funktionstyp für negative Distanzen
+     * @param leftParameter  Parameter für negative Distanzen
+     * @param rightType      Funktionstyp für positive Distanzen
+     * @param rightParameter Parameter für positive Distanzen
+     * @return Die erstellte Spalte
+     */
+    public static AttributeColumn numeric(String name, double weight, double[] values, double diff,
+                                          NumberConfig leftType, double leftParameter,
+                                          NumberConfig rightType, double rightParameter) {
+        return new AttributeColumn(name, weight, null, null, null, values,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, diff, leftType, leftParameter, rightType, rightParameter);
+    }
+
+    /**
+     * Wandelt einen Anfragewert in einen Wert für die numerische Bewertung um.
+     *
+     * @param queryValue Anfragewert als String oder null, falls nicht vorhanden
+     * @return Der Wert oder null, wenn die Spalte nicht numerisch ist, der Wert fehlt, keine Ganzzahl ist oder
+     * außerhalb des Wertebereichs liegt (dann bewertet myCBR den Wert, siehe {@link #queryAttribute})
+     */
+    Integer numericQuery(String queryValue) {
+        if (numericValues == null) {
+            return null;
+        }
+        Integer value = CaseColumns.parseInteger(queryValue);
+        return value != null && value >= minValue && value <= maxValue ? value : null;
+    }
+
+    /**
+     * Berechnet die lokale Ähnlichkeit für eine Distanz (Fallwert - Anfragewert) genau so,
+     * wie {@link IntegerFct} es für die Differenz-Distanz tut.
+     * Die Distanz wird auf den Wertebereich [-diff, diff] begrenzt, damit die Polynomfunktion keine
+     * Werte über 1 oder NaN liefert (für Werte im Wertebereich ändert das nichts).
+     *
+     * @param distance Distanz zwischen Fallwert und Anfragewert
+     * @return Die lokale Ähnlichkeit
+     */
+    double similarity(double distance) {
+        distance = Math.max(-diff, Math.min(diff, distance));
+        if (distance < 0) {
+            return switch (leftType) {
+                case CONSTANT -> leftParameter;
+                case STEP_AT -> distance < leftParameter ? 0.0 : 1.0;
+                case POLYNOMIAL_WITH -> Math.pow(distance / diff + 1.0, leftParameter);
+                case SMOOTH_STEP_AT -> 1.0 / (1.0 + Math.exp((-distance + leftParameter) * (100.0 / diff)));
+            };
+        } else if (distance > 0) {
+            return switch (rightType) {
+                case CONSTANT -> rightParameter;
+                case STEP_AT -> distance > rightParameter ? 0.0 : 1.0;
+                case POLYNOMIAL_WITH -> Math.pow(distance / -diff + 1.0, rightParameter);
+                case SMOOTH_STEP_AT -> 1.0 / (1.0 + Math.exp((distance - rightParameter) * (100.0 / diff)));
+            };
+        }
+        return 1.0;
+    }
+
+    /**
+     * Gibt die größte lokale Ähnlichkeit zurück, die diese Spalte liefern kann.
+     * Wird als obere Schranke für das Branch-and-Bound-Retrieval verwendet.
+     *
+     * @return Die maximale lokale Ähnlichkeit (mindestens 1, unbegrenzt bei negativem Polynomexponenten)
+     */
+    double maxSimilarity() {
+        // Bei begrenzter Distanz liegt die Basis des Polynoms in [0, 1]; nur negative Exponenten führen über 1
+        if ((leftType == NumberConfig.POLYNOMIAL_WITH && leftParameter < 0)
+                || (rightType == NumberConfig.POLYNOMIAL_WITH && rightParameter < 0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double max = 1.0;
+        if (leftType == NumberConfig.CONSTANT) {
+            max = Math.max(max, leftParameter);
+        }
+        if (rightType == NumberConfig.CONSTANT) {
+            max = Math.max(max, rightParameter);
+        }
+        return max;
+    }
+
+    /**
+     * Bewertet die Spalte über die myCBR-Ähnlichkeitsfunktion und addiert die gewichteten
+     * Ähnlichkeiten auf die Punktzahlen.
+     *
+     * @param project    Das myCBR-Projekt (für Sonderwerte)
+     * @param queryValue Anfragewert als String oder null, falls nicht vorhanden
+     * @param scores     Gewichtete Teilsummen je Fall
+     * @throws Exception Wenn myCBR den Wert nicht verarbeiten kann
+     */
+    void accumulateGeneric(Project project, String queryValue, double[] scores) throws Exception {
+        Attribute queryAttribute = queryAttribute(project, queryValue);
+        for (int i = 0; i < caseAttributes.length; i++) {
+            scores[i] += weight * localSimilarity(queryAttribute, i);
+        }
+    }
+
+    /**
+     * Wandelt einen Anfragewert in ein myCBR-Attribut um.
+     * Wie beim Hinzufügen zur Anfrageinstanz in myCBR wird ein Wert außerhalb des Wertebereichs
+     * zum Sonderwert "_unknown_".
+     *
+     * @param project    Das myCBR-Projekt (für Sonderwerte)
+     * @param queryValue Anfragewert als String oder null, falls nicht vorhanden
+     * @return Das Attribut oder der Sonderwert "_undefined_" bzw. "_unknown_"
+     * @throws Exception Wenn myCBR den Wert nicht verarbeiten kann
+     */
+    Attribute queryAttribute(Project project, String queryValue) throws Exception {
+        if (queryValue == null) {
+            return project.getSpecialAttribute(Project.UNDEFINED_SPECIAL_ATTRIBUTE);
+        }
+        Attribute attribute = desc.getAttribute(queryValue);
+        return attribute != null ? attribute : project.getSpecialAttribute(Project.UNKNOWN_SPECIAL_VALUE);
+    }
+
+    /**
+     * Berechnet die lokale Ähnlichkeit eines Falls über die myCBR-Funktion.
+     *
+     * @param queryAttribute Anfrageattribut
+     * @param caseIndex      Index des Falls
+     * @return Die lokale Ähnlichkeit
+     * @throws Exception Wenn myCBR die Ähnlichkeit nicht berechnen kann
+     */
+    double localSimilarity(Attribute queryAttribute, int caseIndex) throws Exception {
+        Similarity similarity = fct instanceof ISimFct simFct
+                ? simFct.calculateSimilarity(queryAttribute, caseAttributes[caseIndex])
+                : ((AmalgamationFct) fct).calculateSimilarity(queryAttribute, caseAttributes[caseIndex]);
+        return similarity.getValue();
+    }
+
+    // Getter-Methoden
+
+    public String getName() {
+        return name;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public boolean isNumeric() {
+        return numericValues != null;
+    }
+
+    public double[] getNumericValues() {
+        return numericValues;
+    }
+
+    public double getDiff() {
+        return diff;
+    }
+
+    public NumberConfig getLeftType() {
+        return leftType;
+    }
+
+    public double getLeftParameter() {
+        return leftParameter;
+    }
+
+    public NumberConfig getRightType() {
+        return rightType;
+    }
+
+    public double getRightParameter() {
+        return rightParameter;
+    }
+}
@@ -0,0 +1,157 @@
+package cbr_util;
+
+import de.dfki.mycbr.core.casebase.Attribute;
+import de.dfki.mycbr.core.casebase.Instance;
+import de.dfki.mycbr.core.similarity.Similarity;
+import de.dfki.mycbr.util.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exaktes Top-k-Retrieval mit Branch-and-Bound über die spaltenorientierte Fallbasis.
+ *
+ * <p>
+ * Die Attribute eines Falls werden in absteigender Gewichtsreihenfolge bewertet. Nach jedem Attribut
+ * wird geprüft, ob die bisherige Teilsumme plus der größtmögliche Beitrag der restlichen Attribute
+ * den aktuell k-besten Fall noch übertreffen kann. Ist das nicht der Fall, wird der Fall verworfen.
+ * Die Ergebnisse sind identisch zu einem vollständigen skalaren Durchlauf über {@link CaseColumns}.
+ * </p>
+ */
+public class BranchAndBoundRetrieval {
+
+    /**
+     * Toleranz für Rundungsfehler beim Vergleich der oberen Schranke
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Die spaltenorientierte Fallbasis
+     */
+    private final CaseColumns caseColumns;
+
+    /**
+     * Größtmöglicher Beitrag der Attribute ab Index j (remainingBound[j]), remainingBound[n] = 0
+     */
+    private final double[] remainingBound;
+
+    // Statistik über alle Anfragen
+    private final LongAdder queryCount = new LongAdder();
+    private final LongAdder evaluationCount = new LongAdder();
+
+    /**
+     * Konstruktor für das Branch-and-Bound-Retrieval.
+     *
+     * @param caseColumns Die spaltenorientierte Fallbasis (Spalten absteigend nach Gewicht sortiert)
+     */
+    public BranchAndBoundRetrieval(CaseColumns caseColumns) {
+        this.caseColumns = caseColumns;
+
+        AttributeColumn[] columns = caseColumns.getColumns();
+        this.remainingBound = new double[columns.length + 1];
+        for (int j = columns.length - 1; j >= 0; j--) {
+            double weight = columns[j].getWeight();
+            remainingBound[j] = remainingBound[j + 1] + (weight == 0 ? 0 : weight * columns[j].maxSimilarity());
+        }
+    }
+
+    /**
+     * Ermittelt die k ähnlichsten Fälle zur Anfrage.
+     *
+     * @param queryAttributes Attributnamen und Anfragewerte
+     * @param k               Anzahl der gesuchten Fälle
+     * @return Die k ähnlichsten Fälle, absteigend nach Ähnlichkeit sortiert (bei Gleichstand in Fallbasis-Reihenfolge)
+     * @throws Exception Wenn myCBR einen Anfragewert nicht verarbeiten kann
+     */
+    public List<Pair<Instance, Similarity>> retrieve(Map<String, String> queryAttributes, int k) throws Exception {
+        AttributeColumn[] columns = caseColumns.getColumns();
+        Instance[] cases = caseColumns.getCases();
+        k = Math.min(k, cases.length);
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Anfragewerte einmalig je Spalte vorbereiten
+        Integer[] numericQuery = new Integer[columns.length];
+        Attribute[] queryAttribute = new Attribute[columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            String queryValue = queryAttributes.get(columns[j].getName());
+            numericQuery[j] = columns[j].numericQuery(queryValue);
+            if (numericQuery[j] == null) {
+                queryAttribute[j] = columns[j].queryAttribute(caseColumns.getProject(), queryValue);
+            }
+        }
+
+        // Bisher beste Fälle, absteigend sortiert
+        double[] topScores = new double[k];
+        int[] topIndices = new int[k];
+        int topCount = 0;
+        long evaluations = 0;
+
+        for (int i = 0; i < cases.length; i++) {
+            double threshold = topCount == k ? topScores[k - 1] : Double.NEGATIVE_INFINITY;
+            double partial = 0;
+            boolean pruned = false;
+
+            for (int j = 0; j < columns.length; j++) {
+                AttributeColumn column = columns[j];
+                double similarity = numericQuery[j] != null
+                        ? column.similarity(column.getNumericValues()[i] - numericQuery[j])
+                        : column.localSimilarity(queryAttribute[j], i);
+                partial += column.getWeight() * similarity;
+                evaluations++;
+
+                // Abbruch, wenn der Fall den k-besten selbst im besten Fall nicht mehr übertreffen kann
+                if (partial + remainingBound[j + 1] + EPSILON <= threshold) {
+                    pruned = true;
+                    break;
+                }
+            }
+
+            if (!pruned && partial > threshold) {
+                // Einfügen in die sortierte Liste, gleich gute Fälle bleiben vor dem neuen Fall
+                int position = topCount < k ? topCount++ : k - 1;
+                while (position > 0 && topScores[position - 1] < partial) {
+                    topScores[position] = topScores[position - 1];
+                    topIndices[position] = topIndices[position - 1];
+                    position--;
+                }
+                topScores[position] = partial;
+                topIndices[position] = i;
+            }
+        }
+
+        queryCount.increment();
+        evaluationCount.add(evaluations);
+
+        // Normierung der gewichteten Summe wie bei CaseColumns.score
+        double totalWeight = caseColumns.getTotalWeight();
+        List<Pair<Instance, Similarity>> results = new ArrayList<>(topCount);
+        for (int r = 0; r < topCount; r++) {
+            double score = totalWeight != 0 ? topScores[r] / totalWeight : topScores[r];
+            results.add(new Pair<>(cases[topIndices[r]], Similarity.get(score)));
+        }
+        return results;
+    }
+
+    /**
+     * Gibt die durchschnittliche Anzahl bewerteter Attribute je Anfrage zurück.
+     *
+     * @return Durchschnittliche Attributauswertungen je Anfrage (0, falls noch keine Anfrage erfolgte)
+     */
+    public double getAverageEvaluationsPerQuery() {
+        long queries = queryCount.sum();
+        return queries == 0 ? 0 : (double) evaluationCount.sum() / queries;
+    }
+
+    /**
+     * Gibt die Anzahl der Attributauswertungen eines vollständigen Durchlaufs zurück.
+     *
+     * @return Fälle * Attribute
+     */
+    public long getFullScanEvaluations() {
+        return (long) caseColumns.size() * caseColumns.getColumns().length;
+    }
+}
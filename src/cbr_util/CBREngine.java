@@ -10,13 +10,29 @@ import de.dfki.mycbr.core.retrieval.Retrieval;
 import de.dfki.mycbr.core.retrieval.Retrieval.RetrievalMethod;
 import de.dfki.mycbr.core.similarity.Similarity;
 import de.dfki.mycbr.util.Pair;
+import cluster.PartitionFilter;
+import cluster.ScatterGatherResult;
+import cluster.ScatterGatherRetrieval;
+import cluster.ShardHit;
+import profiling.CategorizationEvent;
+import profiling.RetrievalEvent;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Singleton-Klasse zur Verwaltung des CBR-Systems.
  * Diese Klasse initialisiert das myCBR-Projekt, ermöglicht die Durchführung von Retrievals
  * und bietet Methoden zur Verarbeitung der Ergebnisse.
+ *
+ * <p>
+ * Neben dem Standardprojekt ({@link #getInstance()}) können weitere benannte Projekte mit eigenem
+ * Konzept und eigener Fallbasis registriert werden ({@link #register}); Anfragen wählen sie über
+ * {@link #getInstance(String)}. Jedes Projekt hat einen eigenen Ergebnis-Cache, Ähnlichkeitsmodelle
+ * und Falldaten werden über den {@link SharedModelPool} gemeinsam genutzt.
+ * </p>
  */
 public class CBREngine {
 
@@ -25,6 +41,27 @@ public class CBREngine {
      */
     private static volatile CBREngine instance;
 
+    /**
+     * Weitere registrierte Projekte nach Namen. Die Map ist unveränderlich und wird bei jeder
+     * Registrierung ersetzt, sodass die Auswahl pro Anfrage ohne Sperren auskommt.
+     */
+    private static volatile Map<String, CBREngine> projects = Map.of();
+
+    /**
+     * Name des Projekts
+     */
+    private final String name;
+
+    /**
+     * Name des Hauptkonzepts
+     */
+    private final String conceptName;
+
+    /**
+     * Name der Fallbasis (null = erste Fallbasis des Projekts)
+     */
+    private final String caseBaseName;
+
     /**
      * Das Hauptkonzept des myCBR-Projekts, auf dem die Abfragen basieren
      */
@@ -36,20 +73,89 @@ public class CBREngine {
     private DefaultCaseBase caseBase;
 
     /**
-     * Pfad zur myCBR-Projektdatei
+     * Position jedes Falls in der vollständigen Fallbasis der Projektdatei (auch bei Partitionierung)
+     */
+    private Map<String, Integer> caseOrder = Map.of();
+
+    /**
+     * Spaltenorientierte Ablage der Fallbasis für das schnelle Retrieval (null, falls nicht unterstützt)
+     */
+    private CaseColumns caseColumns;
+
+    /**
+     * Kernel zur Bewertung numerischer Attributspalten
      */
-    private static final String PROJECT_PATH = "C:\\Users\\abdul\\Desktop\\IT-Studienprojekt\\StarCraft2.prj";
+    private static final SimilarityKernel SIMILARITY_KERNEL = SimilarityKernel.create();
+
+    /**
+     * Exaktes Top-k-Retrieval über die spaltenorientierte Fallbasis (null, falls nicht unterstützt)
+     */
+    private BranchAndBoundRetrieval branchAndBound;
+
+    /**
+     * Verfahren für {@link #retrieveAndCategorizeCases(Map)}: standardmäßig wie bisher alle Fälle,
+     * mit {@link RetrievalMode#BRANCH_AND_BOUND} nur die {@link #TOP_K} besten
+     */
+    private volatile RetrievalMode retrievalMode = RetrievalMode.FULL_SCAN;
+
+    /**
+     * Verteiltes Retrieval über entfernte Partitionen (null = lokale Fallbasis)
+     */
+    private volatile ScatterGatherRetrieval scatterGather;
+
+    /**
+     * Fasst gleichzeitige, identische Anfragen mehrerer Verbindungen zu einer Berechnung zusammen
+     */
+    private final SingleFlight<Map<String, String>, Map<String, Pair<String, Double>>> inFlightQueries = new SingleFlight<>();
+
+    /**
+     * Cache für Ergebnisse bereits berechneter (oder spekulativ vorausberechneter) Anfragen
+     */
+    private final ResultCache<Map<String, String>, Map<String, Pair<String, Double>>> resultCache = new ResultCache<>(RESULT_CACHE_CAPACITY);
+
+    /**
+     * Anzahl der aktuell laufenden Client-Anfragen aller Projekte (ohne spekulative Vorausberechnungen)
+     */
+    private static final AtomicInteger activeRequests = new AtomicInteger();
+
+    /**
+     * Maximale Anzahl an Einträgen im Ergebnis-Cache
+     */
+    private static final int RESULT_CACHE_CAPACITY = 4096;
+
+    /**
+     * Anzahl der Fälle, die beim Branch-and-Bound und beim verteilten Retrieval ermittelt werden
+     * (die Antwort an die Bots enthält nur den besten Fall)
+     */
+    private static final int TOP_K = 1;
+
+    /**
+     * Pfad zur myCBR-Projektdatei (Standard, wenn kein Pfad angegeben wird)
+     */
+    public static final String PROJECT_PATH = "C:\\Users\\abdul\\Desktop\\IT-Studienprojekt\\StarCraft2.prj";
 
     /**
      * Name des Hauptkonzepts im Projekt
      */
     private static final String CONCEPT_NAME = "Ressourcenentscheidungen";
 
+    /**
+     * Name des Standardprojekts in Anfragen
+     */
+    public static final String DEFAULT_PROJECT_NAME = "standard";
+
     /**
      * Privater Konstruktor, um die Erstellung mehrerer Instanzen zu verhindern
-     * (Singleton-Pattern).
+     * (Singleton-Pattern je Projekt).
+     *
+     * @param name         Name des Projekts
+     * @param conceptName  Name des Hauptkonzepts
+     * @param caseBaseName Name der Fallbasis (null = erste Fallbasis des Projekts)
      */
-    private CBREngine() {
+    private CBREngine(String name, String conceptName, String caseBaseName) {
+        this.name = name;
+        this.conceptName = conceptName;
+        this.caseBaseName = caseBaseName;
     }
 
     /**
@@ -62,41 +168,156 @@ public class CBREngine {
         if (instance == null) {
             synchronized (CBREngine.class) {
                 if (instance == null) {
-                    instance = new CBREngine();
+                    instance = new CBREngine(DEFAULT_PROJECT_NAME, CONCEPT_NAME, null);
                 }
             }
         }
         return instance;
     }
 
+    /**
+     * Gibt die CBREngine eines benannten Projekts zurück (ohne Sperren, für jede Anfrage).
+     *
+     * @param projectName Name des Projekts (null oder {@link #DEFAULT_PROJECT_NAME} = Standardprojekt)
+     * @return Die CBREngine des Projekts oder null, wenn kein Projekt mit diesem Namen registriert ist
+     */
+    public static CBREngine getInstance(String projectName) {
+        if (projectName == null || projectName.equals(DEFAULT_PROJECT_NAME)) {
+            return getInstance();
+        }
+        return projects.get(projectName);
+    }
+
+    /**
+     * Lädt ein weiteres Projekt und registriert es unter einem Namen.
+     * Eine bereits geladene Projektdatei wird dabei nicht erneut geladen.
+     *
+     * @param projectName  Name, über den Anfragen das Projekt wählen
+     * @param projectPath  Pfad zur myCBR-Projektdatei
+     * @param conceptName  Name des Hauptkonzepts (null = Standardkonzept)
+     * @param caseBaseName Name der Fallbasis (null = erste Fallbasis des Projekts)
+     * @return Die CBREngine des Projekts
+     * @throws IllegalArgumentException Wenn der Name bereits vergeben ist oder das Projekt nicht geladen werden kann
+     */
+    public static CBREngine register(String projectName, String projectPath, String conceptName, String caseBaseName) {
+        synchronized (CBREngine.class) {
+            if (projectName.equals(DEFAULT_PROJECT_NAME) || projects.containsKey(projectName)) {
+                throw new IllegalArgumentException("Projektname bereits vergeben: " + projectName);
+            }
+            CBREngine engine = new CBREngine(projectName, conceptName != null ? conceptName : CONCEPT_NAME, caseBaseName);
+            engine.init(projectPath);
+            if (engine.caseBase == null) {
+                throw new IllegalArgumentException("Projekt '" + projectName + "' konnte nicht geladen werden: " + projectPath);
+            }
+
+            Map<String, CBREngine> updated = new HashMap<>(projects);
+            updated.put(projectName, engine);
+            projects = Map.copyOf(updated);
+            return engine;
+        }
+    }
+
+    /**
+     * Gibt die Namen aller zusätzlich registrierten Projekte zurück.
+     *
+     * @return Namen der Projekte (ohne das Standardprojekt)
+     */
+    public static Set<String> getProjectNames() {
+        return projects.keySet();
+    }
+
     /**
      * Initialisiert das myCBR-Projekt, lädt das Hauptkonzept und die Standard-Fallbasis.
      */
     public void init() {
-        try {
-            System.out.println("Lade myCBR-Projekt von: " + PROJECT_PATH);
-            Project cbrProject = new Project(PROJECT_PATH);
+        init(PROJECT_PATH);
+    }
 
-            // Warte, bis der Projekt-Import abgeschlossen ist
-            while (cbrProject.isImporting()) {
-                Thread.sleep(200);
+    /**
+     * Initialisiert ein bestimmtes myCBR-Projekt (z. B. für Offline-Werkzeuge).
+     *
+     * @param projectPath Pfad zur myCBR-Projektdatei
+     */
+    public void init(String projectPath) {
+        init(projectPath, 0, 1);
+    }
+
+    /**
+     * Initialisiert ein myCBR-Projekt und behält nur die Fälle einer Partition der Fallbasis
+     * (für den Betrieb als Partition hinter einem Front-Knoten, siehe {@link cluster.ShardServer}).
+     * Ohne Partitionierung werden Projektdatei und spaltenorientierte Fallbasis mit anderen
+     * Projekten geteilt.
+     *
+     * @param projectPath    Pfad zur myCBR-Projektdatei
+     * @param partition      Index der Partition (0 bis partitionCount - 1)
+     * @param partitionCount Anzahl der Partitionen (1 = vollständige Fallbasis)
+     */
+    public void init(String projectPath, int partition, int partitionCount) {
+        try {
+            System.out.println("Lade myCBR-Projekt '" + name + "' von: " + projectPath);
+            // Eine Partition lädt nur eine gefilterte Kopie der Projektdatei mit ihren eigenen Fällen
+            boolean partitioned = partitionCount > 1;
+            Map<String, PartitionFilter.PartitionedCaseBase> partitionedCaseBases = Map.of();
+            Project cbrProject;
+            if (partitioned) {
+                Path partitionFile = Files.createTempFile("cbr-partition-" + partition + "-", ".prj");
+                try {
+                    partitionedCaseBases = PartitionFilter.write(projectPath, partitionFile, partition, partitionCount);
+                    cbrProject = SharedModelPool.load(partitionFile.toString());
+                } finally {
+                    Files.deleteIfExists(partitionFile);
+                }
+            } else {
+                cbrProject = SharedModelPool.project(projectPath);
             }
 
             // Lade das Hauptkonzept aus dem Projekt
-            statusConcept = cbrProject.getConceptByID(CONCEPT_NAME);
+            statusConcept = cbrProject.getConceptByID(conceptName);
             if (statusConcept == null) {
-                throw new IllegalArgumentException("Das Konzept '" + CONCEPT_NAME + "' wurde nicht gefunden.");
+                throw new IllegalArgumentException("Das Konzept '" + conceptName + "' wurde nicht gefunden.");
             }
 
-            // Initialisiere die Standard-Fallbasis
-            ICaseBase base = cbrProject.getCaseBases().values().stream().findFirst().orElse(null);
+            // Initialisiere die Fallbasis
+            ICaseBase base = caseBaseName != null
+                    ? cbrProject.getCaseBases().get(caseBaseName)
+                    : cbrProject.getCaseBases().values().stream().findFirst().orElse(null);
             if (base instanceof DefaultCaseBase) {
                 caseBase = (DefaultCaseBase) base;
             } else {
                 throw new IllegalArgumentException("Keine gültige Standard-Fallbasis gefunden.");
             }
 
-            System.out.println("CBREngine erfolgreich initialisiert.");
+            // Reihenfolge der vollständigen Fallbasis merken (entscheidet bei Gleichstand über Partitionen hinweg)
+            if (partitioned) {
+                PartitionFilter.PartitionedCaseBase partitionedCaseBase = partitionedCaseBases.get(caseBase.getName());
+                caseOrder = partitionedCaseBase != null ? partitionedCaseBase.caseOrder() : Map.of();
+                System.out.println("Partition " + partition + "/" + partitionCount + ": " + caseBase.getCases().size() + " von "
+                        + (partitionedCaseBase != null ? partitionedCaseBase.totalCases() : "?") + " Fällen geladen.");
+            } else {
+                Map<String, Integer> order = new HashMap<>();
+                for (Instance instance : caseBase.getCases()) {
+                    order.put(instance.getName(), order.size());
+                }
+                caseOrder = order;
+            }
+
+            // Fallbasis in Attributspalten zerlegen
+            if (partitioned) {
+                // Fälle in der Reihenfolge der vollständigen Fallbasis, damit Gleichstände wie auf einem einzelnen Knoten aufgelöst werden
+                Instance[] cases = caseBase.getCases().toArray(new Instance[0]);
+                Arrays.sort(cases, Comparator.comparingInt(instance -> getCaseOrder(instance.getName())));
+                caseColumns = CaseColumns.build(statusConcept, cases);
+            } else {
+                caseColumns = SharedModelPool.caseColumns(statusConcept, caseBase);
+            }
+            if (caseColumns != null) {
+                branchAndBound = new BranchAndBoundRetrieval(caseColumns);
+                System.out.println("Spaltenorientierte Fallbasis mit " + caseColumns.size() + " Fällen erstellt (Kernel: " + SIMILARITY_KERNEL + ").");
+            } else {
+                System.out.println("Amalgamierungsfunktion wird nicht unterstützt, Retrieval erfolgt über myCBR.");
+            }
+
+            System.out.println("CBREngine erfolgreich initialisiert. Gemeinsam genutzt: " + SharedModelPool.describe());
         } catch (Exception e) {
             System.err.println("Fehler beim Initialisieren der CBREngine: " + e.getMessage());
         }
@@ -113,59 +334,400 @@ public class CBREngine {
             throw new IllegalStateException("CBREngine wurde nicht initialisiert. Rufe init() auf.");
         }
 
-        List<Pair<Instance, Similarity>> results = new ArrayList<>();
         try {
-            // Erstelle ein Retrieval-Objekt
-            Retrieval retrieval = new Retrieval(statusConcept, caseBase);
-            retrieval.setRetrievalMethod(RetrievalMethod.RETRIEVE_SORTED);
-
-            // Initialisiere die Abfrageinstanz
-            Instance queryInstance = retrieval.getQueryInstance();
-
-            // Füge die Abfrageattribute hinzu, wobei null-Attribute ausgeschlossen werden
-            List<String> ignoredAttributes = new ArrayList<>();
-
-            for (Map.Entry<String, String> entry : queryAttributes.entrySet()) {
-                AttributeDesc attrDesc = statusConcept.getAllAttributeDescs().get(entry.getKey());
-                if (attrDesc != null && entry.getValue() != null) {
-                    queryInstance.addAttribute(attrDesc, entry.getValue());
-                } else {
-                    ignoredAttributes.add(entry.getKey());
-                }
-            }
+            return retrieveAll(queryAttributes);
+        } catch (Exception e) {
+            System.err.println("Fehler beim Retrieval: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Führt ein vollständiges Retrieval durch, ohne Fehler abzufangen.
+     *
+     * @param queryAttributes Eine Map mit Attributnamen und zugehörigen Werten für die Abfrage
+     * @return Eine Liste von Fällen und deren Ähnlichkeitswerten
+     * @throws Exception Wenn das Retrieval fehlschlägt
+     */
+    private List<Pair<Instance, Similarity>> retrieveAll(Map<String, String> queryAttributes) throws Exception {
+        // Schnelles Retrieval über die spaltenorientierte Fallbasis
+        if (caseColumns != null) {
+            warnIgnoredAttributes(queryAttributes);
+            return retrieveFromColumns(queryAttributes);
+        }
 
-            // Warnung für ignorierte Attribute
-            if (!ignoredAttributes.isEmpty()) {
-                System.out.println("Warnung: Folgende Attribute wurden ignoriert, da sie nicht im Konzept existieren oder null sind: " + ignoredAttributes);
+        // Erstelle ein Retrieval-Objekt
+        Retrieval retrieval = new Retrieval(statusConcept, caseBase);
+        retrieval.setRetrievalMethod(RetrievalMethod.RETRIEVE_SORTED);
+
+        // Initialisiere die Abfrageinstanz
+        Instance queryInstance = retrieval.getQueryInstance();
+
+        // Füge die Abfrageattribute hinzu, wobei null-Attribute ausgeschlossen werden
+        List<String> ignoredAttributes = new ArrayList<>();
+
+        for (Map.Entry<String, String> entry : queryAttributes.entrySet()) {
+            AttributeDesc attrDesc = statusConcept.getAllAttributeDescs().get(entry.getKey());
+            if (attrDesc != null && entry.getValue() != null) {
+                queryInstance.addAttribute(attrDesc, entry.getValue());
+            } else {
+                ignoredAttributes.add(entry.getKey());
             }
+        }
 
-            // Starte das Retrieval und speichere die Ergebnisse
-            retrieval.start();
-            results = retrieval.getResult();
+        // Warnung für ignorierte Attribute
+        if (!ignoredAttributes.isEmpty()) {
+            System.out.println("Warnung: Folgende Attribute wurden ignoriert, da sie nicht im Konzept existieren oder null sind: " + ignoredAttributes);
+        }
+
+        // Starte das Retrieval und gib die Ergebnisse zurück
+        retrieval.start();
+        return retrieval.getResult();
+    }
 
+    /**
+     * Ermittelt exakt die k ähnlichsten Fälle über Branch-and-Bound.
+     * Steht die spaltenorientierte Fallbasis nicht zur Verfügung, werden die ersten k Fälle
+     * eines vollständigen Retrievals zurückgegeben.
+     *
+     * @param queryAttributes Eine Map mit Attributnamen und zugehörigen Werten für die Abfrage
+     * @param k               Anzahl der gesuchten Fälle
+     * @return Die k ähnlichsten Fälle, absteigend nach Ähnlichkeit sortiert
+     */
+    public List<Pair<Instance, Similarity>> retrieveTopCases(Map<String, String> queryAttributes, int k) {
+        if (statusConcept == null || caseBase == null) {
+            throw new IllegalStateException("CBREngine wurde nicht initialisiert. Rufe init() auf.");
+        }
+
+        try {
+            return retrieveTopCasesOrThrow(queryAttributes, k);
         } catch (Exception e) {
             System.err.println("Fehler beim Retrieval: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Wie {@link #retrieveTopCases(Map, int)}, gibt Fehler des Retrievals aber an den Aufrufer weiter,
+     * statt eine leere Liste zurückzugeben. Wird von {@link cluster.ShardServer} verwendet, damit ein
+     * fehlgeschlagenes Retrieval nicht als vollständige, leere Antwort gilt.
+     *
+     * @param queryAttributes Eine Map mit Attributnamen und zugehörigen Werten für die Abfrage
+     * @param k               Anzahl der gesuchten Fälle
+     * @return Die k ähnlichsten Fälle, absteigend nach Ähnlichkeit sortiert
+     * @throws Exception Wenn das Retrieval fehlschlägt
+     */
+    public List<Pair<Instance, Similarity>> retrieveTopCasesOrThrow(Map<String, String> queryAttributes, int k) throws Exception {
+        if (statusConcept == null || caseBase == null) {
+            throw new IllegalStateException("CBREngine wurde nicht initialisiert. Rufe init() auf.");
         }
 
+        if (branchAndBound == null) {
+            List<Pair<Instance, Similarity>> results = retrieveAll(queryAttributes);
+            return new ArrayList<>(results.subList(0, Math.min(k, results.size())));
+        }
+
+        warnIgnoredAttributes(queryAttributes);
+        return branchAndBound.retrieve(queryAttributes, k);
+    }
+
+    /**
+     * Gibt den Namen des Projekts zurück.
+     *
+     * @return Name des Projekts ({@link #DEFAULT_PROJECT_NAME} für das Standardprojekt)
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gibt das Hauptkonzept zurück.
+     *
+     * @return Das Hauptkonzept (null vor {@link #init()})
+     */
+    public Concept getConcept() {
+        return statusConcept;
+    }
+
+    /**
+     * Gibt die Fallbasis zurück.
+     *
+     * @return Die Fallbasis (null vor {@link #init()})
+     */
+    public DefaultCaseBase getCaseBase() {
+        return caseBase;
+    }
+
+    /**
+     * Gibt die Position eines Falls in der vollständigen Fallbasis der Projektdatei zurück, auch wenn
+     * nur eine Partition geladen ist. Bei gleicher Ähnlichkeit gewinnt wie beim lokalen Retrieval der
+     * Fall mit der kleineren Position.
+     *
+     * @param caseName Name des Falls
+     * @return Die Position oder -1, falls der Fall unbekannt ist
+     */
+    public int getCaseOrder(String caseName) {
+        return caseOrder.getOrDefault(caseName, -1);
+    }
+
+    /**
+     * Gibt die spaltenorientierte Fallbasis zurück.
+     *
+     * @return Die spaltenorientierte Fallbasis oder null, falls die Amalgamierungsfunktion nicht unterstützt wird
+     */
+    public CaseColumns getCaseColumns() {
+        return caseColumns;
+    }
+
+    /**
+     * Gibt den Kernel zur Bewertung numerischer Attributspalten zurück.
+     *
+     * @return Der Kernel
+     */
+    public SimilarityKernel getSimilarityKernel() {
+        return SIMILARITY_KERNEL;
+    }
+
+    /**
+     * Setzt das Verfahren für {@link #retrieveAndCategorizeCases(Map)} und leert den Ergebnis-Cache,
+     * da die Ergebnisse beider Verfahren unterschiedlich viele Fälle enthalten.
+     *
+     * @param retrievalMode Das zu verwendende Verfahren
+     */
+    public void setRetrievalMode(RetrievalMode retrievalMode) {
+        synchronized (resultCache) {
+            this.retrievalMode = retrievalMode;
+            resultCache.clear();
+        }
+    }
+
+    /**
+     * Gibt das Verfahren für {@link #retrieveAndCategorizeCases(Map)} zurück.
+     *
+     * @return Das aktuelle Verfahren
+     */
+    public RetrievalMode getRetrievalMode() {
+        return retrievalMode;
+    }
+
+    /**
+     * Beantwortet Anfragen über entfernte Partitionen statt über eine lokale Fallbasis.
+     * {@link #init()} ist in diesem Fall nicht erforderlich.
+     *
+     * @param scatterGather Das verteilte Retrieval über alle Partitionen
+     */
+    public void useShards(ScatterGatherRetrieval scatterGather) {
+        this.scatterGather = scatterGather;
+    }
+
+    /**
+     * Gibt das verteilte Retrieval zurück.
+     *
+     * @return Das verteilte Retrieval oder null, wenn die lokale Fallbasis verwendet wird
+     */
+    public ScatterGatherRetrieval getScatterGather() {
+        return scatterGather;
+    }
+
+    /**
+     * Gibt die durchschnittliche Anzahl der Attributauswertungen je Branch-and-Bound-Anfrage zurück.
+     *
+     * @return Durchschnittliche Attributauswertungen (0, falls Branch-and-Bound nicht verfügbar ist)
+     */
+    public double getAverageAttributeEvaluations() {
+        return branchAndBound != null ? branchAndBound.getAverageEvaluationsPerQuery() : 0;
+    }
+
+    /**
+     * Führt ein Retrieval über die spaltenorientierte Fallbasis durch.
+     * Das Ergebnis entspricht {@link RetrievalMethod#RETRIEVE_SORTED}: alle Fälle, absteigend nach Ähnlichkeit sortiert.
+     *
+     * @param queryAttributes Eine Map mit Attributnamen und zugehörigen Werten für die Abfrage
+     * @return Eine sortierte Liste von Fällen und deren Ähnlichkeitswerten
+     * @throws Exception Wenn myCBR einen Anfragewert nicht verarbeiten kann
+     */
+    private List<Pair<Instance, Similarity>> retrieveFromColumns(Map<String, String> queryAttributes) throws Exception {
+        double[] scores = caseColumns.score(queryAttributes, SIMILARITY_KERNEL);
+        Instance[] cases = caseColumns.getCases();
+
+        List<Pair<Instance, Similarity>> results = new ArrayList<>(cases.length);
+        for (int i = 0; i < cases.length; i++) {
+            results.add(new Pair<>(cases[i], Similarity.get(scores[i])));
+        }
+        results.sort((p1, p2) -> Double.compare(p2.getSecond().getValue(), p1.getSecond().getValue()));
         return results;
     }
 
     /**
-     * Führt ein Retrieval durch und gibt die Top 5 Ergebnisse kategorisiert zurück.
+     * Gibt eine Warnung für Abfrageattribute aus, die nicht im Konzept existieren oder null sind.
      *
      * @param queryAttributes Eine Map mit Attributnamen und zugehörigen Werten für die Abfrage
-     * @return Eine Map der Top 5 Fälle (Fallname -> Kategorie)
+     */
+    private void warnIgnoredAttributes(Map<String, String> queryAttributes) {
+        List<String> ignoredAttributes = new ArrayList<>();
+        for (Map.Entry<String, String> entry : queryAttributes.entrySet()) {
+            if (statusConcept.getAllAttributeDescs().get(entry.getKey()) == null || entry.getValue() == null) {
+                ignoredAttributes.add(entry.getKey());
+            }
+        }
+        if (!ignoredAttributes.isEmpty()) {
+            System.out.println("Warnung: Folgende Attribute wurden ignoriert, da sie nicht im Konzept existieren oder null sind: " + ignoredAttributes);
+        }
+    }
+
+    /**
+     * Führt ein Retrieval durch und gibt die Ergebnisse mit ihren Ähnlichkeiten zurück; kategorisiert
+     * wird der ähnlichste Fall. Mit {@link RetrievalMode#FULL_SCAN} (Standard) enthält das Ergebnis
+     * alle Fälle, mit {@link RetrievalMode#BRANCH_AND_BOUND} nur die {@link #TOP_K} besten.
+     * Treffen identische Anfragen gleichzeitig ein, wird das Retrieval nur einmal ausgeführt und
+     * alle Aufrufer erhalten dasselbe (unveränderliche) Ergebnis. Bereits berechnete Anfragen
+     * werden aus dem Ergebnis-Cache beantwortet.
+     *
+     * @param queryAttributes Eine Map mit Attributnamen und zugehörigen Werten für die Abfrage
+     * @return Eine Map der Fälle (Fallname -> Kategorie und Ähnlichkeit)
      */
     public Map<String, Pair<String, Double>> retrieveAndCategorizeCases(Map<String, String> queryAttributes) {
+        Map<String, String> queryKey = normalizeQuery(queryAttributes);
+        activeRequests.incrementAndGet();
+        try {
+            Map<String, Pair<String, Double>> cached = resultCache.get(queryKey);
+            if (cached != null) {
+                return cached;
+            }
+            return computeShared(queryKey, false);
+        } finally {
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    /**
+     * Berechnet das Ergebnis einer Anfrage spekulativ im Voraus und legt es im Ergebnis-Cache ab.
+     * Zählt nicht als laufende Client-Anfrage.
+     *
+     * @param queryAttributes Eine Map mit Attributnamen und zugehörigen Werten für die Abfrage
+     * @return true, wenn das Ergebnis neu berechnet wurde, false, wenn es bereits im Cache lag
+     */
+    public boolean prefetch(Map<String, String> queryAttributes) {
+        Map<String, String> queryKey = normalizeQuery(queryAttributes);
+        if (resultCache.contains(queryKey)) {
+            return false;
+        }
+        computeShared(queryKey, true);
+        return true;
+    }
+
+    /**
+     * Berechnet eine Anfrage über die Single-Flight-Tabelle und legt das Ergebnis im Cache ab.
+     * Unvollständige Ergebnisse des verteilten Retrievals werden nicht gecacht.
+     *
+     * @param queryKey Normalisierte Anfrage
+     * @param prefetch true für spekulative Vorausberechnungen (getrennte Single-Flight-Metriken)
+     * @return Das unveränderliche Ergebnis
+     */
+    private Map<String, Pair<String, Double>> computeShared(Map<String, String> queryKey, boolean prefetch) {
+        return inFlightQueries.execute(queryKey, () -> {
+            ScatterGatherRetrieval shards = scatterGather;
+            if (shards != null) {
+                ScatterGatherResult remote = retrieveFromShards(shards, queryKey);
+                Map<String, Pair<String, Double>> result = Collections.unmodifiableMap(categorizeHits(remote.hits()));
+                if (remote.isComplete()) {
+                    resultCache.put(queryKey, result);
+                }
+                return result;
+            }
+            RetrievalMode mode = retrievalMode;
+            Map<String, Pair<String, Double>> result = Collections.unmodifiableMap(computeAndCategorizeCases(queryKey, mode));
+            // Ergebnisse eines inzwischen gewechselten Verfahrens nicht mehr cachen
+            synchronized (resultCache) {
+                if (retrievalMode == mode) {
+                    resultCache.put(queryKey, result);
+                }
+            }
+            return result;
+        }, prefetch);
+    }
+
+    /**
+     * Gibt die Anzahl der aktuell laufenden Client-Anfragen aller Projekte zurück.
+     *
+     * @return Anzahl laufender Anfragen (0 = Server ist untätig)
+     */
+    public int getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    /**
+     * Gibt den Ergebnis-Cache zurück (z. B. für Metriken).
+     *
+     * @return Der Ergebnis-Cache
+     */
+    public ResultCache<Map<String, String>, Map<String, Pair<String, Double>>> getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Normalisiert eine Anfrage zu einem Schlüssel, der bei gleichem Inhalt gleich ist
+     * (unabhängig von Map-Implementierung und Reihenfolge).
+     *
+     * @param queryAttributes Eine Map mit Attributnamen und zugehörigen Werten für die Abfrage
+     * @return Unveränderliche, sortierte Kopie der Anfrage
+     */
+    private static Map<String, String> normalizeQuery(Map<String, String> queryAttributes) {
+        return Collections.unmodifiableMap(new TreeMap<>(queryAttributes));
+    }
+
+    /**
+     * Gibt die Metriken der Zusammenfassung identischer Anfragen zurück.
+     *
+     * @return Die Single-Flight-Tabelle der Anfragen
+     */
+    public SingleFlight<Map<String, String>, Map<String, Pair<String, Double>>> getInFlightQueries() {
+        return inFlightQueries;
+    }
+
+    /**
+     * Führt das Retrieval aus und kategorisiert die Ergebnisse.
+     *
+     * @param queryAttributes Eine Map mit Attributnamen und zugehörigen Werten für die Abfrage
+     * @param mode            Das Retrieval-Verfahren
+     * @return Eine Map der Fälle (Fallname -> Kategorie und Ähnlichkeit)
+     */
+    private Map<String, Pair<String, Double>> computeAndCategorizeCases(Map<String, String> queryAttributes, RetrievalMode mode) {
         // Rufe die Ergebnisse des Retrievals ab
-        List<Pair<Instance, Similarity>> results = retrieveCases(queryAttributes);
+        RetrievalEvent retrievalEvent = new RetrievalEvent();
+        retrievalEvent.begin();
+        List<Pair<Instance, Similarity>> results = mode == RetrievalMode.BRANCH_AND_BOUND
+                ? retrieveTopCases(queryAttributes, TOP_K)
+                : retrieveCases(queryAttributes);
+        retrievalEvent.end();
+        if (retrievalEvent.shouldCommit()) {
+            retrievalEvent.mode = mode.name();
+            retrievalEvent.caseCount = caseBase.getCases().size();
+            retrievalEvent.resultCount = results.size();
+            if (!results.isEmpty()) {
+                Pair<Instance, Similarity> top = Collections.max(results, Comparator.comparingDouble(result -> result.getSecond().getValue()));
+                retrievalEvent.topCase = top.getFirst().getName();
+                retrievalEvent.topSimilarity = top.getSecond().getValue();
+            }
+            retrievalEvent.commit();
+        }
 
         for (Pair<Instance, Similarity> result : results) {
             System.out.println("Instance: " + result.getFirst() + ", Similarity: " + result.getSecond().getValue());
         }
 
         // Kategorisierte Fälle abrufen
+        CategorizationEvent categorizationEvent = new CategorizationEvent();
+        categorizationEvent.begin();
         Map<String, String> categorizedCases = RetrievalHelper.getCategorizedTopCases(results);
+        categorizationEvent.end();
+        if (categorizationEvent.shouldCommit()) {
+            categorizedCases.entrySet().stream().findFirst().ifPresent(top -> {
+                categorizationEvent.caseName = top.getKey();
+                categorizationEvent.category = top.getValue();
+            });
+            categorizationEvent.commit();
+        }
 
         // Map mit Ähnlichkeitswerten erstellen
         Map<String, Pair<String, Double>> casesWithSimilarity = new HashMap<>();
@@ -179,4 +741,60 @@ public class CBREngine {
 
         return casesWithSimilarity;
     }
+
+    /**
+     * Führt das verteilte Retrieval über alle Partitionen aus.
+     *
+     * @param shards          Das verteilte Retrieval
+     * @param queryAttributes Eine Map mit Attributnamen und zugehörigen Werten für die Abfrage
+     * @return Die zusammengeführten besten Fälle der Partitionen
+     */
+    private ScatterGatherResult retrieveFromShards(ScatterGatherRetrieval shards, Map<String, String> queryAttributes) {
+        RetrievalEvent retrievalEvent = new RetrievalEvent();
+        retrievalEvent.begin();
+        ScatterGatherResult result = shards.retrieve(queryAttributes, TOP_K);
+        retrievalEvent.end();
+        if (retrievalEvent.shouldCommit()) {
+            retrievalEvent.mode = "SCATTER_GATHER";
+            retrievalEvent.caseCount = result.caseCount();
+            retrievalEvent.resultCount = result.hits().size();
+            if (!result.hits().isEmpty()) {
+                retrievalEvent.topCase = result.hits().get(0).caseName();
+                retrievalEvent.topSimilarity = result.hits().get(0).similarity();
+            }
+            retrievalEvent.commit();
+        }
+
+        if (!result.isComplete()) {
+            System.out.println("WARNING: Unvollständiges Ergebnis: " + result.answeredShards() + " von "
+                    + result.totalShards() + " Partitionen haben geantwortet.");
+        }
+        return result;
+    }
+
+    /**
+     * Kategorisiert die Fälle aus dem verteilten Retrieval.
+     *
+     * @param hits Die besten Fälle, absteigend nach Ähnlichkeit
+     * @return Eine Map der Fälle (Fallname -> Kategorie und Ähnlichkeit)
+     */
+    private Map<String, Pair<String, Double>> categorizeHits(List<ShardHit> hits) {
+        Map<String, Pair<String, Double>> casesWithSimilarity = new HashMap<>();
+        for (ShardHit hit : hits) {
+            System.out.println("Instance: " + hit.caseName() + ", Similarity: " + hit.similarity());
+
+            CategorizationEvent categorizationEvent = new CategorizationEvent();
+            categorizationEvent.begin();
+            String category = RetrievalHelper.getCategory(hit.caseName());
+            categorizationEvent.end();
+            if (categorizationEvent.shouldCommit()) {
+                categorizationEvent.caseName = hit.caseName();
+                categorizationEvent.category = category;
+                categorizationEvent.commit();
+            }
+
+            casesWithSimilarity.put(hit.caseName(), new Pair<>(category, hit.similarity()));
+        }
+        return casesWithSimilarity;
+    }
 }
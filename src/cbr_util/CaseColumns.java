@@ -0,0 +1,174 @@
+package cbr_util;
+
+import de.dfki.mycbr.core.ICaseBase;
+import de.dfki.mycbr.core.Project;
+import de.dfki.mycbr.core.casebase.Attribute;
+import de.dfki.mycbr.core.casebase.Instance;
+import de.dfki.mycbr.core.model.AttributeDesc;
+import de.dfki.mycbr.core.model.Concept;
+import de.dfki.mycbr.core.similarity.AmalgamationFct;
+import de.dfki.mycbr.core.similarity.config.AmalgamationConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spaltenorientierte Ablage der Fallbasis.
+ * Die Fälle werden einmalig beim Start in Attributspalten zerlegt, sodass ein Retrieval die
+ * gewichtete Summe der lokalen Ähnlichkeiten direkt über primitive Arrays berechnen kann,
+ * statt für jeden Fall die myCBR-Objekte zu durchlaufen.
+ */
+public class CaseColumns {
+
+    /**
+     * Das myCBR-Projekt (für Sonderwerte)
+     */
+    private final Project project;
+
+    /**
+     * Alle Fälle in fester Reihenfolge (Index = Fallindex)
+     */
+    private final Instance[] cases;
+
+    /**
+     * Eine Spalte je aktivem Attribut der Amalgamierungsfunktion, absteigend nach Gewicht sortiert
+     */
+    private final AttributeColumn[] columns;
+
+    /**
+     * Summe der Gewichte aller aktiven Attribute
+     */
+    private final double totalWeight;
+
+    private CaseColumns(Project project, Instance[] cases, AttributeColumn[] columns, double totalWeight) {
+        this.project = project;
+        this.cases = cases;
+        this.columns = columns;
+        this.totalWeight = totalWeight;
+    }
+
+    /**
+     * Zerlegt die Fallbasis eines Konzepts in Attributspalten.
+     * Unterstützt wird nur die gewichtete Summe als Amalgamierungsfunktion.
+     *
+     * @param concept  Das Konzept, dessen aktive Amalgamierungsfunktion verwendet wird
+     * @param caseBase Die Fallbasis
+     * @return Die spaltenorientierte Fallbasis oder null, falls die Amalgamierungsfunktion nicht unterstützt wird
+     */
+    public static CaseColumns build(Concept concept, ICaseBase caseBase) {
+        return build(concept, caseBase.getCases().toArray(new Instance[0]));
+    }
+
+    /**
+     * Zerlegt die angegebenen Fälle eines Konzepts in Attributspalten. Die Reihenfolge der Fälle
+     * bestimmt den Fallindex und damit die Reihenfolge bei gleicher Ähnlichkeit.
+     *
+     * @param concept Das Konzept, dessen aktive Amalgamierungsfunktion verwendet wird
+     * @param cases   Die Fälle in der gewünschten Reihenfolge
+     * @return Die spaltenorientierte Fallbasis oder null, falls die Amalgamierungsfunktion nicht unterstützt wird
+     */
+    public static CaseColumns build(Concept concept, Instance[] cases) {
+        AmalgamationFct amalgamation = concept.getActiveAmalgamFct();
+        if (amalgamation == null || amalgamation.getType() != AmalgamationConfig.WEIGHTED_SUM) {
+            return null;
+        }
+
+        List<AttributeColumn> columns = new ArrayList<>();
+        double totalWeight = 0;
+
+        for (AttributeDesc desc : concept.getAllAttributeDescs().values()) {
+            Object fct = amalgamation.getActiveFct(desc);
+            // Nur aktive Attribute mit Funktion fließen in die gewichtete Summe ein (wie in myCBR)
+            if (!Boolean.TRUE.equals(amalgamation.isActive(desc)) || fct == null) {
+                continue;
+            }
+
+            Attribute[] caseAttributes = new Attribute[cases.length];
+            for (int i = 0; i < cases.length; i++) {
+                caseAttributes[i] = cases[i].getAttForDesc(desc);
+            }
+
+            double weight = amalgamation.getWeight(desc).doubleValue();
+            columns.add(AttributeColumn.of(desc, fct, weight, caseAttributes));
+            totalWeight += weight;
+        }
+
+        // Schwere Attribute zuerst, damit das Branch-and-Bound-Retrieval früh abbrechen kann
+        columns.sort((c1, c2) -> Double.compare(c2.getWeight(), c1.getWeight()));
+
+        return new CaseColumns(concept.getProject(), cases, columns.toArray(new AttributeColumn[0]), totalWeight);
+    }
+
+    /**
+     * Berechnet die globale Ähnlichkeit aller Fälle zur Anfrage.
+     * Numerische Spalten werden über den Kernel bewertet, alle anderen sowie Anfragewerte außerhalb
+     * des Wertebereichs über myCBR.
+     *
+     * @param queryAttributes Attributnamen und Anfragewerte
+     * @param kernel          Kernel für numerische Spalten
+     * @return Ähnlichkeit je Fall (Index = Fallindex)
+     * @throws Exception Wenn myCBR einen Anfragewert nicht verarbeiten kann
+     */
+    public double[] score(Map<String, String> queryAttributes, SimilarityKernel kernel) throws Exception {
+        double[] scores = new double[cases.length];
+
+        for (AttributeColumn column : columns) {
+            String queryValue = queryAttributes.get(column.getName());
+            Integer numericQuery = column.numericQuery(queryValue);
+
+            if (numericQuery != null) {
+                kernel.accumulate(column, numericQuery, scores);
+            } else {
+                column.accumulateGeneric(project, queryValue, scores);
+            }
+        }
+
+        // Normierung der gewichteten Summe
+        if (totalWeight != 0) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] /= totalWeight;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Wandelt einen Anfragewert in eine Ganzzahl um.
+     *
+     * @param value Der Anfragewert
+     * @return Die Ganzzahl oder null, falls der Wert fehlt oder keine Ganzzahl ist
+     */
+    static Integer parseInteger(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Getter-Methoden
+
+    public Project getProject() {
+        return project;
+    }
+
+    public Instance[] getCases() {
+        return cases;
+    }
+
+    public AttributeColumn[] getColumns() {
+        return columns;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    public int size() {
+        return cases.length;
+    }
+}
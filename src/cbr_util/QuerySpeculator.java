@@ -0,0 +1,245 @@
+package cbr_util;
+
+import model.GameStatus;
+import model.Request;
+import util.GameStatusProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Berechnet die wahrscheinlichen Anfragen des nächsten Ticks spekulativ im Voraus.
+ *
+ * <p>
+ * Für jede Verbindung wird der letzte (und vorletzte) Spielstatus gespeichert. Daraus werden einige
+ * Folgezustände abgeleitet: Mineralien und Gas wachsen um das zuletzt beobachtete Einkommen, und wenn
+ * im Nexus ein Arbeiter ausgebildet wird ({@code NexusTrainingStatus}), steigen Arbeiter und
+ * Versorgung um eins. Die Retrievals dieser Zustände werden in einem Hintergrund-Thread mit niedriger
+ * Priorität berechnet und landen im Ergebnis-Cache der {@link CBREngine} des angefragten Projekts.
+ * Vorhersagen, die der Server als ungültige Anfrage ablehnen würde ({@link Request#isValid()}, z. B.
+ * Versorgung über dem Limit), werden nicht berechnet. Die Vorausberechnung beginnt erst, wenn keine
+ * Client-Anfrage läuft, und bricht vor jeder weiteren Vorhersage ab, sobald wieder eine Anfrage
+ * eintrifft. Ein bereits begonnenes Retrieval wird zu Ende gerechnet, eine Anfrage kann sich also
+ * höchstens um die Dauer eines Retrievals verzögern.
+ * </p>
+ */
+public class QuerySpeculator {
+
+    /**
+     * Anzahl der Ticks, die im Voraus berechnet werden
+     */
+    private static final int SPECULATION_DEPTH = 2;
+
+    /**
+     * Wartezeit in Millisekunden, wenn der Server gerade Client-Anfragen bearbeitet
+     */
+    private static final long IDLE_POLL_MILLIS = 1;
+
+    /**
+     * Die CBREngine, deren laufende Anfragen den Leerlauf bestimmen
+     */
+    private final CBREngine cbrEngine;
+
+    /**
+     * Letzter und vorletzter Spielstatus je Verbindung
+     */
+    private final Map<Object, ConnectionState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Verbindungen mit neuem Spielstatus, die noch bearbeitet werden müssen
+     */
+    private final LinkedBlockingQueue<Object> pending = new LinkedBlockingQueue<>();
+
+    /**
+     * Verbindungen, die sich bereits in {@link #pending} befinden
+     */
+    private final Set<Object> queued = ConcurrentHashMap.newKeySet();
+
+    // Metriken
+    private final LongAdder prefetched = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * Letzter und vorletzter Spielstatus einer Verbindung.
+     *
+     * @param cbrEngine Die CBREngine des Projekts, das die Verbindung zuletzt angefragt hat
+     * @param previous  Vorletzter Spielstatus (null nach der ersten Anfrage)
+     * @param last      Letzter Spielstatus
+     */
+    private record ConnectionState(CBREngine cbrEngine, GameStatus previous, GameStatus last) {
+    }
+
+    /**
+     * Konstruktor für den Speculator.
+     *
+     * @param cbrEngine Die CBREngine, deren laufende Anfragen den Leerlauf bestimmen
+     */
+    public QuerySpeculator(CBREngine cbrEngine) {
+        this.cbrEngine = cbrEngine;
+    }
+
+    /**
+     * Startet den Hintergrund-Thread mit niedriger Priorität.
+     */
+    public void start() {
+        Thread worker = new Thread(this::run, "query-speculator");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    /**
+     * Merkt sich den Spielstatus einer Verbindung, nachdem ihre Anfrage beantwortet wurde.
+     *
+     * @param connection Kennung der Verbindung (z. B. die Socket-Adresse)
+     * @param engine     Die CBREngine des angefragten Projekts (in deren Cache wird vorausberechnet)
+     * @param gameStatus Der zuletzt empfangene Spielstatus
+     */
+    public void observe(Object connection, CBREngine engine, GameStatus gameStatus) {
+        // Nach einem Projektwechsel ist der vorletzte Spielstatus keine Grundlage für das Einkommen
+        states.compute(connection, (key, old) -> new ConnectionState(engine,
+                old != null && old.cbrEngine() == engine ? old.last() : null, gameStatus));
+        if (queued.add(connection)) {
+            pending.offer(connection);
+        }
+    }
+
+    /**
+     * Entfernt den Zustand einer geschlossenen Verbindung.
+     *
+     * @param connection Kennung der Verbindung
+     */
+    public void forget(Object connection) {
+        states.remove(connection);
+    }
+
+    /**
+     * Hauptschleife des Hintergrund-Threads.
+     */
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Object connection = pending.take();
+                queued.remove(connection);
+
+                ConnectionState state = states.get(connection);
+                if (state == null) {
+                    continue;
+                }
+
+                waitUntilIdle();
+                for (GameStatus projected : project(state)) {
+                    // Client-Anfrage eingetroffen: restliche Vorhersagen nicht mehr berechnen
+                    if (cbrEngine.getActiveRequests() > 0) {
+                        break;
+                    }
+                    // Neuer Spielstatus eingetroffen: Vorhersagen des alten Zustands verwerfen
+                    if (states.get(connection) != state) {
+                        break;
+                    }
+                    if (state.cbrEngine().prefetch(GameStatusProcessor.extractAttributes(projected))) {
+                        prefetched.increment();
+                    } else {
+                        skipped.increment();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.out.println("WARNING: Spekulative Vorausberechnung fehlgeschlagen: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Wartet, bis keine Client-Anfrage mehr bearbeitet wird.
+     *
+     * @throws InterruptedException Wenn der Thread unterbrochen wird
+     */
+    private void waitUntilIdle() throws InterruptedException {
+        while (cbrEngine.getActiveRequests() > 0) {
+            Thread.sleep(IDLE_POLL_MILLIS);
+        }
+    }
+
+    /**
+     * Leitet die wahrscheinlichen Folgezustände eines Spielstatus ab.
+     *
+     * @param state Letzter und vorletzter Spielstatus der Verbindung
+     * @return Die gültigen vorhergesagten Spielstatus, wahrscheinlichster zuerst
+     */
+    private static List<GameStatus> project(ConnectionState state) {
+        GameStatus last = state.last();
+        GameStatus previous = state.previous();
+
+        // Einkommen seit dem letzten Tick (Ausgaben werden nicht vorhergesagt)
+        int mineralIncome = previous != null ? Math.max(0, last.getMinerals() - previous.getMinerals()) : 0;
+        int gasIncome = previous != null ? Math.max(0, last.getGas() - previous.getGas()) : 0;
+        boolean training = last.isNexusTrainingStatus() > 0;
+
+        List<GameStatus> projections = new ArrayList<>();
+        for (int tick = 1; tick <= SPECULATION_DEPTH; tick++) {
+            if (training) {
+                projections.add(projectTick(last, tick, tick * mineralIncome, tick * gasIncome, 1));
+            }
+            if (mineralIncome > 0 || gasIncome > 0) {
+                projections.add(projectTick(last, tick, tick * mineralIncome, tick * gasIncome, 0));
+            }
+        }
+        // Nur Zustände vorausberechnen, die der Server auch als Anfrage annehmen würde
+        projections.removeIf(projected -> !new Request(projected, null).isValid());
+        return projections;
+    }
+
+    /**
+     * Erstellt einen Folgezustand mit zusätzlichen Ressourcen und ausgebildeten Arbeitern.
+     *
+     * @param last           Der letzte Spielstatus
+     * @param ticks          Anzahl der Ticks nach dem letzten Spielstatus
+     * @param mineralGain    Zusätzliche Mineralien
+     * @param gasGain        Zusätzliches Gas
+     * @param trainedWorkers Anzahl fertig ausgebildeter Arbeiter
+     * @return Der vorhergesagte Spielstatus
+     */
+    private static GameStatus projectTick(GameStatus last, int ticks, int mineralGain, int gasGain, int trainedWorkers) {
+        int supplyUsed = last.getSupplyUsed() + trainedWorkers;
+        return new GameStatus(
+                last.getIteration() + ticks,
+                last.getWorkers() + trainedWorkers,
+                last.getIdleWorkers(),
+                last.getMinerals() + mineralGain,
+                last.getGas() + gasGain,
+                last.getPylons(),
+                last.getNexus(),
+                last.getGateways(),
+                last.getCyberneticsCores(),
+                supplyUsed,
+                last.getSupplyCap(),
+                last.getAssimilator(),
+                last.getTotalAssimilatorHarvesters(),
+                last.getZealot(),
+                last.getStalker(),
+                Math.max(0, last.getSupplyDifferenceUsedCap() - trainedWorkers),
+                last.getNexusWorker() + trainedWorkers,
+                last.isNexusTrainingStatus());
+    }
+
+    /**
+     * @return Anzahl der vorausberechneten Anfragen
+     */
+    public long getPrefetched() {
+        return prefetched.sum();
+    }
+
+    /**
+     * @return Anzahl der Vorhersagen, die bereits im Cache lagen
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+}
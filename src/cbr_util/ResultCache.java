@@ -0,0 +1,151 @@
+package cbr_util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Begrenzter Cache für Retrieval-Ergebnisse mit näherungsweiser LRU-Verdrängung.
+ * Da die Fallbasis nach dem Start nicht mehr verändert wird, liefert eine identische Anfrage
+ * immer dasselbe Ergebnis, sodass Einträge nicht invalidiert werden müssen.
+ *
+ * <p>
+ * Lesezugriffe kommen ohne Sperre aus: Jeder Eintrag merkt sich nur den Zeitpunkt seines letzten
+ * Zugriffs. Wird die Kapazität überschritten, entfernt {@link #put} in einem Durchgang die am längsten
+ * nicht genutzten Einträge ({@link #EVICTION_BATCH} der Kapazität), sodass nur Schreibzugriffe –
+ * nach einem ohnehin teuren Retrieval – eine Sperre benötigen.
+ * </p>
+ *
+ * @param <K> Typ des Schlüssels (normalisierte Anfrage)
+ * @param <V> Typ des Ergebnisses (muss unveränderlich sein)
+ */
+public class ResultCache<K, V> {
+
+    /**
+     * Anteil der Kapazität, der bei Überschreitung auf einmal verdrängt wird
+     */
+    private static final double EVICTION_BATCH = 0.1;
+
+    /**
+     * Ein Ergebnis mit dem Zeitpunkt (System.nanoTime) des letzten Zugriffs.
+     */
+    private static final class Entry<V> {
+        final V value;
+        volatile long lastAccess;
+
+        Entry(V value) {
+            this.value = value;
+            this.lastAccess = System.nanoTime();
+        }
+    }
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    /**
+     * Sperre für Schreibzugriffe (Einfügen und Verdrängen)
+     */
+    private final Object writeLock = new Object();
+
+    // Metriken
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Konstruktor für den Ergebnis-Cache.
+     *
+     * @param capacity Maximale Anzahl an Einträgen
+     */
+    public ResultCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gibt das gespeicherte Ergebnis zurück und zählt Treffer bzw. Fehlzugriffe (ohne Sperre).
+     *
+     * @param key Schlüssel der Anfrage
+     * @return Das Ergebnis oder null, falls nicht vorhanden
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            entry.lastAccess = System.nanoTime();
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Prüft, ob ein Ergebnis vorhanden ist, ohne die Metriken oder die LRU-Reihenfolge zu verändern.
+     *
+     * @param key Schlüssel der Anfrage
+     * @return true, wenn ein Ergebnis gespeichert ist
+     */
+    public boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Speichert ein Ergebnis und verdrängt bei Überschreitung der Kapazität die ältesten Einträge.
+     *
+     * @param key   Schlüssel der Anfrage
+     * @param value Das Ergebnis
+     */
+    public void put(K key, V value) {
+        synchronized (writeLock) {
+            entries.put(key, new Entry<>(value));
+            if (entries.size() > capacity) {
+                evict(entries.size() - capacity + (int) (capacity * EVICTION_BATCH));
+            }
+        }
+    }
+
+    /**
+     * Entfernt alle Einträge (z. B. nach einem Wechsel des Retrieval-Verfahrens).
+     */
+    public void clear() {
+        synchronized (writeLock) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Entfernt die am längsten nicht genutzten Einträge.
+     *
+     * @param count Anzahl der zu entfernenden Einträge
+     */
+    private void evict(int count) {
+        long[] accesses = entries.values().stream().mapToLong(entry -> entry.lastAccess).toArray();
+        if (count >= accesses.length) {
+            entries.clear();
+            return;
+        }
+        Arrays.sort(accesses);
+        long threshold = accesses[count - 1];
+        entries.values().removeIf(entry -> entry.lastAccess <= threshold);
+    }
+
+    /**
+     * @return Anzahl der Cache-Treffer
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Anteil der Treffer an allen Zugriffen (0 bis 1)
+     */
+    public double getHitRate() {
+        long total = hits.sum() + misses.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * @return Aktuelle Anzahl an Einträgen
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -35,11 +35,8 @@ public class RetrievalHelper {
         for (Pair<Instance, Similarity> result : topResults) {
             String caseName = result.getFirst().getName(); // Name der Fallinstanz
 
-            // Extrahiere die Fallnummer aus dem Fallnamen
-            int caseNumber = extractCaseNumber(caseName);
-
             // Bestimme die Kategorie basierend auf der Fallnummer
-            String category = getCategoryFromCaseNumber(caseNumber);
+            String category = getCategory(caseName);
 
             // Speichere die Zuordnung von Fallname und Kategorie in der Map
             categorizedCases.put(caseName, category);
@@ -48,6 +45,16 @@ public class RetrievalHelper {
         return categorizedCases;
     }
 
+    /**
+     * Bestimmt die Kategorie eines Falls anhand seines Namens.
+     *
+     * @param caseName Der Name des Falls (z. B. "Fall 14").
+     * @return Die Kategorie des Falls oder "Unknown" für unklassifizierte Fälle.
+     */
+    public static String getCategory(String caseName) {
+        return getCategoryFromCaseNumber(extractCaseNumber(caseName));
+    }
+
     /**
      * Extrahiert die Fallnummer aus dem Namen eines Falls.
      *
@@ -0,0 +1,17 @@
+package cbr_util;
+
+/**
+ * Verfahren, mit dem die {@link CBREngine} die ähnlichsten Fälle ermittelt.
+ */
+public enum RetrievalMode {
+
+    /**
+     * Alle Fälle werden vollständig bewertet und sortiert.
+     */
+    FULL_SCAN,
+
+    /**
+     * Exaktes Top-k-Retrieval mit vorzeitigem Abbruch aussichtsloser Fälle ({@link BranchAndBoundRetrieval}).
+     */
+    BRANCH_AND_BOUND
+}
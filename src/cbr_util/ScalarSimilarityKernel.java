@@ -0,0 +1,36 @@
+package cbr_util;
+
+/**
+ * Skalarer Kernel, der eine numerische Spalte Fall für Fall bewertet.
+ * Dient als Fallback, wenn die Vector API nicht verfügbar ist, und für die Restelemente
+ * des {@link VectorSimilarityKernel}.
+ */
+public class ScalarSimilarityKernel implements SimilarityKernel {
+
+    @Override
+    public void accumulate(AttributeColumn column, double queryValue, double[] scores) {
+        accumulate(column, queryValue, scores, 0, scores.length);
+    }
+
+    /**
+     * Bewertet die Fälle im Bereich [from, to) einer numerischen Spalte.
+     *
+     * @param column     Die numerische Spalte
+     * @param queryValue Der Anfragewert des Attributs
+     * @param scores     Gewichtete Teilsummen je Fall
+     * @param from       Erster Fallindex (inklusiv)
+     * @param to         Letzter Fallindex (exklusiv)
+     */
+    void accumulate(AttributeColumn column, double queryValue, double[] scores, int from, int to) {
+        double[] values = column.getNumericValues();
+        double weight = column.getWeight();
+        for (int i = from; i < to; i++) {
+            scores[i] += weight * column.similarity(values[i] - queryValue);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "skalar";
+    }
+}
@@ -0,0 +1,170 @@
+package cbr_util;
+
+import de.dfki.mycbr.core.ICaseBase;
+import de.dfki.mycbr.core.Project;
+import de.dfki.mycbr.core.model.Concept;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gemeinsame Ablage der Ähnlichkeitsmodelle und Falldaten aller Projekte eines Servers.
+ *
+ * <p>
+ * Projekte, die dieselbe Projektdatei verwenden, teilen sich das geladene myCBR-Projekt und damit
+ * alle Ähnlichkeitsfunktionen und Fälle; für dasselbe Konzept und dieselbe Fallbasis wird auch die
+ * spaltenorientierte Fallbasis nur einmal erstellt. Numerische Attributspalten mit identischem Inhalt
+ * (z. B. dieselben Fälle in verschiedenen Projektdateien) werden über alle Projekte hinweg nur einmal
+ * gespeichert. Die Ablage wird nur beim Laden eines Projekts verwendet, nicht pro Anfrage.
+ * </p>
+ */
+public final class SharedModelPool {
+
+    /**
+     * Geladene myCBR-Projekte je absolutem Dateipfad
+     */
+    private static final Map<Path, Project> projects = new ConcurrentHashMap<>();
+
+    /**
+     * Spaltenorientierte Fallbasen je Konzept und Fallbasis
+     */
+    private static final Map<ColumnsKey, CaseColumns> caseColumns = new ConcurrentHashMap<>();
+
+    /**
+     * Numerische Attributspalten nach Inhalt
+     */
+    private static final Map<ValuesKey, double[]> numericValues = new ConcurrentHashMap<>();
+
+    // Metriken
+    private static final AtomicLong sharedProjects = new AtomicLong();
+    private static final AtomicLong sharedCaseColumns = new AtomicLong();
+    private static final AtomicLong sharedValueColumns = new AtomicLong();
+    private static final AtomicLong sharedBytes = new AtomicLong();
+
+    /**
+     * Schlüssel einer spaltenorientierten Fallbasis (Vergleich über die Identität der myCBR-Objekte).
+     */
+    private record ColumnsKey(Concept concept, ICaseBase caseBase) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ColumnsKey key && key.concept == concept && key.caseBase == caseBase;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(concept) + System.identityHashCode(caseBase);
+        }
+    }
+
+    /**
+     * Schlüssel einer numerischen Spalte (Vergleich über den Inhalt).
+     */
+    private record ValuesKey(double[] values) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ValuesKey key && Arrays.equals(key.values, values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+
+    private SharedModelPool() {
+    }
+
+    /**
+     * Gibt das myCBR-Projekt einer Projektdatei zurück und lädt es nur beim ersten Aufruf.
+     *
+     * @param projectPath Pfad zur myCBR-Projektdatei
+     * @return Das geladene Projekt
+     * @throws Exception Wenn das Projekt nicht geladen werden kann
+     */
+    public static Project project(String projectPath) throws Exception {
+        Path key = Path.of(projectPath).toAbsolutePath().normalize();
+        Project project = projects.get(key);
+        if (project != null) {
+            sharedProjects.incrementAndGet();
+            return project;
+        }
+        synchronized (projects) {
+            project = projects.get(key);
+            if (project == null) {
+                project = load(key.toString());
+                projects.put(key, project);
+            } else {
+                sharedProjects.incrementAndGet();
+            }
+            return project;
+        }
+    }
+
+    /**
+     * Lädt ein myCBR-Projekt ohne gemeinsame Nutzung (z. B. wenn die Fallbasis anschließend verändert wird).
+     *
+     * @param projectPath Pfad zur myCBR-Projektdatei
+     * @return Das geladene Projekt
+     * @throws Exception Wenn das Projekt nicht geladen werden kann
+     */
+    public static Project load(String projectPath) throws Exception {
+        Project project = new Project(projectPath);
+
+        // Warte, bis der Projekt-Import abgeschlossen ist
+        while (project.isImporting()) {
+            Thread.sleep(200);
+        }
+        return project;
+    }
+
+    /**
+     * Gibt die spaltenorientierte Fallbasis eines Konzepts zurück und erstellt sie nur beim ersten Aufruf.
+     *
+     * @param concept  Das Konzept
+     * @param caseBase Die Fallbasis
+     * @return Die spaltenorientierte Fallbasis oder null, falls die Amalgamierungsfunktion nicht unterstützt wird
+     */
+    public static CaseColumns caseColumns(Concept concept, ICaseBase caseBase) {
+        ColumnsKey key = new ColumnsKey(concept, caseBase);
+        CaseColumns columns = caseColumns.get(key);
+        if (columns != null) {
+            sharedCaseColumns.incrementAndGet();
+            return columns;
+        }
+        return caseColumns.computeIfAbsent(key, k -> CaseColumns.build(concept, caseBase));
+    }
+
+    /**
+     * Gibt eine inhaltsgleiche, bereits gespeicherte numerische Spalte zurück oder speichert die übergebene.
+     * Die Spalten dürfen danach nicht mehr verändert werden.
+     *
+     * @param values Attributwerte der Fälle
+     * @return Die gemeinsam genutzte Spalte
+     */
+    static double[] intern(double[] values) {
+        double[] shared = numericValues.putIfAbsent(new ValuesKey(values), values);
+        if (shared == null) {
+            return values;
+        }
+        sharedValueColumns.incrementAndGet();
+        sharedBytes.addAndGet((long) values.length * Double.BYTES);
+        return shared;
+    }
+
+    /**
+     * Gibt die Metriken der gemeinsamen Nutzung als Text zurück.
+     *
+     * @return Beschreibung der gemeinsam genutzten Modelle und Daten
+     */
+    public static String describe() {
+        return String.format("%d Projektdateien (%d mehrfach genutzt), %d spaltenorientierte Fallbasen (%d mehrfach genutzt), "
+                        + "%d numerische Spalten (%d mehrfach genutzt, %d KiB eingespart)",
+                projects.size(), sharedProjects.get(), caseColumns.size(), sharedCaseColumns.get(),
+                numericValues.size(), sharedValueColumns.get(), sharedBytes.get() / 1024);
+    }
+}
@@ -0,0 +1,37 @@
+package cbr_util;
+
+/**
+ * Schnittstelle für Kernels, die numerische Attributspalten bewerten.
+ * Ein Kernel berechnet für jeden Fall die lokale Ähnlichkeit zum Anfragewert und addiert
+ * sie gewichtet auf die Punktzahl des Falls.
+ */
+public interface SimilarityKernel {
+
+    /**
+     * Name des Moduls der Java Vector API
+     */
+    String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * Addiert {@code gewicht * ähnlichkeit} einer numerischen Spalte auf die Punktzahlen aller Fälle.
+     *
+     * @param column     Die numerische Spalte ({@link AttributeColumn#isNumeric()} muss true sein)
+     * @param queryValue Der Anfragewert des Attributs
+     * @param scores     Gewichtete Teilsummen je Fall (Index = Fallindex)
+     */
+    void accumulate(AttributeColumn column, double queryValue, double[] scores);
+
+    /**
+     * Gibt den schnellsten verfügbaren Kernel zurück.
+     * Der Vector-API-Kernel wird nur verwendet, wenn die JVM mit
+     * {@code --add-modules jdk.incubator.vector} gestartet wurde, sonst wird der skalare Kernel genutzt.
+     *
+     * @return Der zu verwendende Kernel
+     */
+    static SimilarityKernel create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            return new VectorSimilarityKernel();
+        }
+        return new ScalarSimilarityKernel();
+    }
+}
@@ -0,0 +1,134 @@
+package cbr_util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Fasst gleichzeitige, identische Berechnungen zusammen ("Single Flight").
+ * Der erste Aufrufer für einen Schlüssel führt die Berechnung aus; alle weiteren Aufrufer mit
+ * demselben Schlüssel warten, solange die Berechnung läuft, auf dasselbe Ergebnis, statt es
+ * erneut zu berechnen. Nach Abschluss wird der Eintrag entfernt, es findet kein Caching statt.
+ *
+ * @param <K> Typ des Schlüssels (muss {@code equals} und {@code hashCode} inhaltlich implementieren)
+ * @param <V> Typ des Ergebnisses (wird von allen wartenden Aufrufern gemeinsam genutzt)
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * Laufende Berechnungen je Schlüssel
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // Metriken (Aufrufe im Hintergrund, z. B. Vorausberechnungen, werden getrennt gezählt)
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+    private final LongAdder backgroundCalls = new LongAdder();
+    private final LongAdder backgroundCoalescedCalls = new LongAdder();
+
+    /**
+     * Führt die Berechnung aus oder wartet auf eine bereits laufende Berechnung mit demselben Schlüssel.
+     *
+     * @param key         Schlüssel der Berechnung
+     * @param computation Die Berechnung
+     * @return Das Ergebnis der (ggf. fremden) Berechnung
+     */
+    public V execute(K key, Supplier<V> computation) {
+        return execute(key, computation, false);
+    }
+
+    /**
+     * Führt die Berechnung aus oder wartet auf eine bereits laufende Berechnung mit demselben Schlüssel.
+     *
+     * @param key         Schlüssel der Berechnung
+     * @param computation Die Berechnung
+     * @param background  true für Aufrufe im Hintergrund (getrennte Metriken)
+     * @return Das Ergebnis der (ggf. fremden) Berechnung
+     */
+    public V execute(K key, Supplier<V> computation, boolean background) {
+        (background ? backgroundCalls : calls).increment();
+
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            (background ? backgroundCoalescedCalls : coalescedCalls).increment();
+            return await(running);
+        }
+
+        try {
+            V value = computation.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Wartet auf eine laufende Berechnung und gibt deren Fehler unverändert weiter.
+     *
+     * @param running Die laufende Berechnung
+     * @return Das Ergebnis der Berechnung
+     */
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return Anzahl aller Aufrufe (ohne Aufrufe im Hintergrund)
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return Anzahl der Aufrufe, die auf eine laufende Berechnung gewartet haben
+     */
+    public long getCoalescedCalls() {
+        return coalescedCalls.sum();
+    }
+
+    /**
+     * @return Anteil der zusammengefassten Aufrufe an allen Aufrufen (0 bis 1)
+     */
+    public double getCoalescingRate() {
+        long total = calls.sum();
+        return total == 0 ? 0 : (double) coalescedCalls.sum() / total;
+    }
+
+    /**
+     * @return Anzahl der Aufrufe im Hintergrund
+     */
+    public long getBackgroundCalls() {
+        return backgroundCalls.sum();
+    }
+
+    /**
+     * @return Anzahl der Aufrufe im Hintergrund, die auf eine laufende Berechnung gewartet haben
+     */
+    public long getBackgroundCoalescedCalls() {
+        return backgroundCoalescedCalls.sum();
+    }
+
+    /**
+     * @return Anzahl der aktuell laufenden Berechnungen
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,95 @@
+package cbr_util;
+
+import de.dfki.mycbr.core.similarity.config.NumberConfig;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD-Kernel auf Basis der Java Vector API ({@code jdk.incubator.vector}).
+ * Unterstützt die Funktionstypen konstant, Stufe und Polynom (linear = Exponent 1) von myCBR.
+ * Spalten mit "Smooth Step" sowie die Restelemente hinter der letzten vollen Vektorbreite
+ * werden an den {@link ScalarSimilarityKernel} übergeben.
+ *
+ * <p>
+ * Benötigt {@code --add-modules jdk.incubator.vector} beim Kompilieren und Starten.
+ * </p>
+ */
+public class VectorSimilarityKernel implements SimilarityKernel {
+
+    /**
+     * Bevorzugte Vektorbreite der Plattform
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Fallback für nicht unterstützte Funktionstypen und Restelemente
+     */
+    private final ScalarSimilarityKernel scalarKernel = new ScalarSimilarityKernel();
+
+    @Override
+    public void accumulate(AttributeColumn column, double queryValue, double[] scores) {
+        if (column.getLeftType() == NumberConfig.SMOOTH_STEP_AT || column.getRightType() == NumberConfig.SMOOTH_STEP_AT) {
+            scalarKernel.accumulate(column, queryValue, scores);
+            return;
+        }
+
+        double[] values = column.getNumericValues();
+        double weight = column.getWeight();
+        int upperBound = SPECIES.loopBound(values.length);
+
+        int i = 0;
+        for (; i < upperBound; i += SPECIES.length()) {
+            DoubleVector distance = DoubleVector.fromArray(SPECIES, values, i).sub(queryValue);
+
+            DoubleVector left = shape(distance, column.getLeftType(), column.getLeftParameter(), column.getDiff(), true);
+            DoubleVector right = shape(distance, column.getRightType(), column.getRightParameter(), column.getDiff(), false);
+
+            // Distanz 0 ergibt Ähnlichkeit 1, sonst linke bzw. rechte Funktion
+            DoubleVector similarity = DoubleVector.broadcast(SPECIES, 1.0)
+                    .blend(left, distance.lt(0.0))
+                    .blend(right, distance.compare(VectorOperators.GT, 0.0));
+
+            DoubleVector.fromArray(SPECIES, scores, i)
+                    .add(similarity.mul(weight))
+                    .intoArray(scores, i);
+        }
+
+        // Restelemente skalar bewerten
+        scalarKernel.accumulate(column, queryValue, scores, i, values.length);
+    }
+
+    /**
+     * Wendet einen Funktionstyp auf alle Distanzen eines Vektors an.
+     *
+     * @param distance  Distanzen (Fallwert - Anfragewert)
+     * @param type      Funktionstyp (konstant, Stufe oder Polynom)
+     * @param parameter Parameter des Funktionstyps
+     * @param diff      Wertebereich des Attributs
+     * @param left      true für die linke Seite (negative Distanzen), false für die rechte
+     * @return Die lokalen Ähnlichkeiten
+     */
+    private static DoubleVector shape(DoubleVector distance, NumberConfig type, double parameter, double diff, boolean left) {
+        return switch (type) {
+            case CONSTANT -> DoubleVector.broadcast(SPECIES, parameter);
+            case STEP_AT -> {
+                VectorMask<Double> outside = left
+                        ? distance.lt(parameter)
+                        : distance.compare(VectorOperators.GT, parameter);
+                yield DoubleVector.broadcast(SPECIES, 1.0).blend(0.0, outside);
+            }
+            case POLYNOMIAL_WITH -> {
+                // Distanz wie im skalaren Kernel auf [-diff, diff] begrenzen
+                DoubleVector base = distance.max(-diff).min(diff).div(left ? diff : -diff).add(1.0);
+                yield parameter == 1.0 ? base : base.lanewise(VectorOperators.POW, parameter);
+            }
+            case SMOOTH_STEP_AT -> throw new IllegalArgumentException("Smooth Step wird skalar berechnet.");
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "Vector API (" + SPECIES.length() + " Lanes)";
+    }
+}
@@ -0,0 +1,46 @@
+package cluster;
+
+/**
+ * Zuordnung der Fälle zu Partitionen der Fallbasis.
+ * Die Zuordnung hängt nur vom Fallnamen ab und ist damit in allen Prozessen gleich.
+ */
+public final class CasePartitioner {
+
+    private CasePartitioner() {
+    }
+
+    /**
+     * Prüft, ob ein Fall zu einer Partition gehört.
+     *
+     * @param caseName       Name des Falls
+     * @param partition      Index der Partition (0 bis partitionCount - 1)
+     * @param partitionCount Anzahl der Partitionen
+     * @return true, wenn der Fall zur Partition gehört
+     */
+    public static boolean belongsTo(String caseName, int partition, int partitionCount) {
+        return partitionCount <= 1 || Math.floorMod(caseName.hashCode(), partitionCount) == partition;
+    }
+
+    /**
+     * Liest eine Partitionsangabe im Format {@code <index>/<anzahl>}, z. B. {@code 0/3}.
+     *
+     * @param value Die Angabe
+     * @return Index und Anzahl
+     * @throws IllegalArgumentException Wenn die Angabe ungültig ist
+     */
+    public static int[] parse(String value) {
+        String[] parts = value.split("/");
+        try {
+            if (parts.length == 2) {
+                int partition = Integer.parseInt(parts[0].trim());
+                int partitionCount = Integer.parseInt(parts[1].trim());
+                if (partitionCount > 0 && partition >= 0 && partition < partitionCount) {
+                    return new int[]{partition, partitionCount};
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Fehlermeldung unten
+        }
+        throw new IllegalArgumentException("Ungültige Partition (erwartet <index>/<anzahl>): " + value);
+    }
+}
@@ -0,0 +1,183 @@
+package cluster;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Schreibt eine Kopie einer myCBR-Projektdatei, die nur die Fälle einer Partition enthält.
+ *
+ * <p>
+ * Die Falldaten ({@code .myCB}) werden als XML-Strom gelesen und gefiltert, ohne dass die vollständige
+ * Fallbasis im Speicher liegt; Modell und übrige Einträge werden unverändert übernommen. Eine Partition
+ * lädt anschließend nur die gefilterte Kopie und benötigt damit nur Speicher für ihre eigenen Fälle.
+ * Die Position eines Falls in der vollständigen Fallbasis ist seine Position in der Projektdatei;
+ * myCBR speichert die Fälle in der Reihenfolge, in der es sie auch nach dem Laden liefert.
+ * </p>
+ */
+public final class PartitionFilter {
+
+    private static final String CASE_DATA_SUFFIX = ".myCB";
+    private static final QName ID = new QName("id");
+    private static final QName NAME = new QName("name");
+
+    /**
+     * Eine Fallbasis der gefilterten Projektdatei.
+     *
+     * @param caseOrder  Position der übernommenen Fälle in der vollständigen Fallbasis
+     * @param totalCases Anzahl der Fälle in der vollständigen Fallbasis
+     */
+    public record PartitionedCaseBase(Map<String, Integer> caseOrder, int totalCases) {
+    }
+
+    private PartitionFilter() {
+    }
+
+    /**
+     * Schreibt die Fälle einer Partition in eine neue Projektdatei.
+     *
+     * @param projectPath    Pfad zur vollständigen myCBR-Projektdatei
+     * @param target         Pfad der zu schreibenden Projektdatei
+     * @param partition      Index der Partition (0 bis partitionCount - 1)
+     * @param partitionCount Anzahl der Partitionen
+     * @return Die Fallbasen der Projektdatei (Name -> übernommene Fälle)
+     * @throws IOException Wenn die Projektdatei nicht gelesen oder geschrieben werden kann
+     */
+    public static Map<String, PartitionedCaseBase> write(String projectPath, Path target, int partition, int partitionCount) throws IOException {
+        Map<String, PartitionedCaseBase> caseBases = new HashMap<>();
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(Path.of(projectPath)));
+             ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(target))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                if (entry.getName().endsWith(CASE_DATA_SUFFIX)) {
+                    // Der XML-Parser schließt seine Ströme, die Zip-Ströme müssen aber offen bleiben
+                    filterCases(new FilterInputStream(in) {
+                        @Override
+                        public void close() {
+                        }
+                    }, new FilterOutputStream(out) {
+                        @Override
+                        public void write(byte[] b, int off, int len) throws IOException {
+                            out.write(b, off, len);
+                        }
+
+                        @Override
+                        public void close() throws IOException {
+                            flush();
+                        }
+                    }, partition, partitionCount, caseBases);
+                } else {
+                    in.transferTo(out);
+                }
+                out.closeEntry();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Falldaten in " + projectPath + " können nicht gelesen werden: " + e.getMessage(), e);
+        }
+        return caseBases;
+    }
+
+    /**
+     * Kopiert die Falldaten und lässt Instanzen und Fallbasis-Einträge anderer Partitionen aus.
+     * Die Reihenfolge der übernommenen Fälle bleibt erhalten.
+     */
+    private static void filterCases(InputStream in, OutputStream out, int partition, int partitionCount,
+                                    Map<String, PartitionedCaseBase> caseBases) throws XMLStreamException {
+        XMLEventReader reader = XMLInputFactory.newInstance().createXMLEventReader(in);
+        XMLEventWriter writer = null;
+        String caseBaseName = null;
+        Map<String, Integer> caseOrder = null;
+        int position = 0;
+        int skipDepth = 0;
+        try {
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (writer == null) {
+                    // Ausgabe in der Kodierung der Eingabe (myCBR schreibt ISO-8859-1)
+                    String encoding = event instanceof StartDocument document && document.encodingSet()
+                            ? document.getCharacterEncodingScheme() : "UTF-8";
+                    writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, encoding);
+                }
+
+                if (skipDepth > 0) {
+                    if (event.isStartElement()) {
+                        skipDepth++;
+                    } else if (event.isEndElement()) {
+                        skipDepth--;
+                    }
+                    continue;
+                }
+
+                if (event.isStartElement()) {
+                    StartElement element = event.asStartElement();
+                    switch (element.getName().getLocalPart()) {
+                        case "cb" -> {
+                            caseBaseName = attribute(element, NAME);
+                            caseOrder = new HashMap<>();
+                            position = 0;
+                        }
+                        case "instance" -> {
+                            if (!CasePartitioner.belongsTo(attribute(element, ID), partition, partitionCount)) {
+                                skipDepth = 1;
+                                continue;
+                            }
+                        }
+                        case "case" -> {
+                            String caseName = attribute(element, NAME);
+                            int order = position++;
+                            if (!CasePartitioner.belongsTo(caseName, partition, partitionCount)) {
+                                skipDepth = 1;
+                                continue;
+                            }
+                            if (caseOrder != null) {
+                                caseOrder.put(caseName, order);
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                } else if (event.isEndElement() && event.asEndElement().getName().getLocalPart().equals("cb") && caseOrder != null) {
+                    caseBases.put(caseBaseName, new PartitionedCaseBase(caseOrder, position));
+                    caseOrder = null;
+                }
+                writer.add(event);
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+        } finally {
+            reader.close();
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * @return Wert des Attributs oder ein leerer String, wenn es fehlt
+     */
+    private static String attribute(StartElement element, QName name) {
+        Attribute attribute = element.getAttributeByName(name);
+        return attribute != null ? attribute.getValue() : "";
+    }
+}
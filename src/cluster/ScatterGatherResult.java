@@ -0,0 +1,21 @@
+package cluster;
+
+import java.util.List;
+
+/**
+ * Zusammengeführtes Ergebnis einer verteilten Anfrage.
+ *
+ * @param hits           Die global besten Fälle, absteigend nach Ähnlichkeit
+ * @param answeredShards Anzahl der Partitionen, die rechtzeitig geantwortet haben
+ * @param totalShards    Anzahl aller Partitionen
+ * @param caseCount      Anzahl der Fälle in den antwortenden Partitionen
+ */
+public record ScatterGatherResult(List<ShardHit> hits, int answeredShards, int totalShards, int caseCount) {
+
+    /**
+     * @return true, wenn alle Partitionen rechtzeitig geantwortet haben
+     */
+    public boolean isComplete() {
+        return answeredShards == totalShards;
+    }
+}
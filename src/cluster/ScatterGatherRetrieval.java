@@ -0,0 +1,155 @@
+package cluster;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verteiltes Top-k-Retrieval über mehrere Partitionen der Fallbasis.
+ *
+ * <p>
+ * Eine Anfrage wird gleichzeitig an alle Partitionen gesendet; jede liefert ihre eigenen k besten Fälle.
+ * Da jeder Fall genau einer Partition angehört, sind die k besten Fälle aller Antworten die global besten.
+ * Partitionen, die bis zur gemeinsamen Frist nicht antworten oder nicht erreichbar sind, werden
+ * ausgelassen; das Ergebnis ist dann unvollständig (siehe {@link ScatterGatherResult#isComplete()}).
+ * Bei gleicher Ähnlichkeit gewinnt – wie auf einem einzelnen Knoten – der Fall, der in der vollständigen
+ * Fallbasis zuerst steht.
+ * </p>
+ */
+public class ScatterGatherRetrieval {
+
+    /**
+     * Standardfrist für die Antworten aller Partitionen
+     */
+    public static final Duration DEFAULT_DEADLINE = Duration.ofMillis(50);
+
+    private final List<ShardClient> shards;
+    private final Duration deadline;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong partialResults = new AtomicLong();
+    private final AtomicLong missedShards = new AtomicLong();
+
+    /**
+     * Konstruktor für das verteilte Retrieval.
+     *
+     * @param shards   Verbindungen zu allen Partitionen
+     * @param deadline Frist für die Antworten, gemessen ab dem Versand der Anfrage
+     */
+    public ScatterGatherRetrieval(List<ShardClient> shards, Duration deadline) {
+        this.shards = List.copyOf(shards);
+        this.deadline = deadline;
+    }
+
+    /**
+     * Liest eine kommagetrennte Liste von Partitionsadressen ({@code <rechner>:<port>,...}).
+     *
+     * @param addresses Die Adressen
+     * @return Verbindungen zu den Partitionen
+     * @throws IllegalArgumentException Wenn eine Adresse ungültig ist
+     */
+    public static List<ShardClient> parseShards(String addresses) {
+        List<ShardClient> shards = new ArrayList<>();
+        for (String address : addresses.split(",")) {
+            if (!address.isBlank()) {
+                shards.add(ShardClient.parse(address));
+            }
+        }
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Keine Partitionen angegeben");
+        }
+        return shards;
+    }
+
+    /**
+     * Ermittelt die k ähnlichsten Fälle über alle Partitionen.
+     *
+     * @param query Attributnamen und Anfragewerte
+     * @param k     Anzahl der gesuchten Fälle
+     * @return Die zusammengeführten Fälle und die Anzahl der rechtzeitig antwortenden Partitionen
+     */
+    public ScatterGatherResult retrieve(Map<String, String> query, int k) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+
+        // Anfrage an alle Partitionen gleichzeitig senden
+        List<CompletableFuture<ShardProtocol.ShardResponse>> responses = new ArrayList<>(shards.size());
+        for (ShardClient shard : shards) {
+            responses.add(shard.send(query, k, deadlineNanos));
+        }
+
+        // Antworten bis zur gemeinsamen Frist einsammeln
+        List<ShardHit> hits = new ArrayList<>();
+        int answered = 0;
+        int caseCount = 0;
+        for (int s = 0; s < responses.size(); s++) {
+            CompletableFuture<ShardProtocol.ShardResponse> response = responses.get(s);
+            try {
+                ShardProtocol.ShardResponse shardResponse = response.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                hits.addAll(shardResponse.hits());
+                caseCount += shardResponse.caseCount();
+                answered++;
+            } catch (TimeoutException e) {
+                response.cancel(false);
+                System.out.println("WARNING: Partition " + shards.get(s) + " hat die Frist von " + deadline.toMillis() + " ms überschritten.");
+            } catch (ExecutionException e) {
+                System.out.println("WARNING: Partition " + shards.get(s) + " nicht verfügbar: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.cancel(false);
+            }
+        }
+
+        // Bei Gleichstand entscheidet die Position in der vollständigen Fallbasis, nicht die Partition
+        hits.sort(Comparator.comparingDouble(ShardHit::similarity).reversed().thenComparingInt(ShardHit::caseOrder));
+        List<ShardHit> top = List.copyOf(hits.subList(0, Math.min(k, hits.size())));
+
+        queries.incrementAndGet();
+        if (answered < shards.size()) {
+            partialResults.incrementAndGet();
+            missedShards.addAndGet(shards.size() - answered);
+        }
+        return new ScatterGatherResult(top, answered, shards.size(), caseCount);
+    }
+
+    /**
+     * @return Anzahl der Partitionen
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * @return Frist für die Antworten der Partitionen
+     */
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return Anzahl der verteilten Anfragen
+     */
+    public long getQueries() {
+        return queries.get();
+    }
+
+    /**
+     * @return Anzahl der Anfragen mit unvollständigem Ergebnis
+     */
+    public long getPartialResults() {
+        return partialResults.get();
+    }
+
+    /**
+     * @return Summe der ausgelassenen Partitionen über alle Anfragen
+     */
+    public long getMissedShards() {
+        return missedShards.get();
+    }
+}
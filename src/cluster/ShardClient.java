@@ -0,0 +1,341 @@
+package cluster;
+
+import transport.ConnectionLimits;
+import transport.FrameReader;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verbindung des Front-Knotens zu einer Partition.
+ *
+ * <p>
+ * Der aufrufende Thread führt keine Netzwerkoperationen aus: {@link #send} legt die Anfrage nur in eine
+ * begrenzte Warteschlange. Ein Sende-Thread je Partition baut die Verbindung auf, schreibt die
+ * Anfragen (mehrere wartende Anfragen in einem Schreibvorgang) und verbindet nach einem Abbruch neu;
+ * ein Lese-Thread je Verbindung ordnet die Antworten über ihre Kennung den wartenden Anfragen zu.
+ * Anfragen, deren Ergebnis beim Senden bereits abgebrochen ist (Frist überschritten), werden verworfen.
+ * Schlägt ein Verbindungsversuch fehl, schlagen die wartenden Anfragen sofort fehl, ebenso neue
+ * Anfragen bis zum nächsten Versuch (höchstens einer je {@link #RECONNECT_INTERVAL_MILLIS}).
+ * Die Instanz darf von mehreren Threads gleichzeitig verwendet werden.
+ * </p>
+ */
+public class ShardClient implements Closeable {
+
+    /**
+     * Mindestabstand zwischen zwei Verbindungsversuchen zu einer nicht erreichbaren Partition
+     */
+    private static final long RECONNECT_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Maximale Wartezeit beim Verbindungsaufbau
+     */
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Maximale Anzahl noch nicht gesendeter Anfragen; weitere Anfragen schlagen sofort fehl
+     */
+    private static final int MAX_QUEUED_REQUESTS = 1024;
+
+    /**
+     * Intervall, in dem der Sende-Thread ohne neue Anfragen prüft, ob die Verbindung noch besteht
+     */
+    private static final long IDLE_CHECK_MILLIS = 100;
+
+    /**
+     * Größe des Schreibpuffers je Verbindung
+     */
+    private static final int WRITE_BUFFER_BYTES = 8 * 1024;
+
+    private final String host;
+    private final int port;
+    private final AtomicLong nextId = new AtomicLong();
+
+    /**
+     * Anfragen, die der Sende-Thread noch nicht geschrieben hat
+     */
+    private final BlockingQueue<Outgoing> outgoing = new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS);
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Thread sender;
+
+    /**
+     * Aktuelle Verbindung (null, wenn nicht verbunden)
+     */
+    private volatile Connection connection;
+
+    /**
+     * true, solange der letzte Verbindungsversuch fehlgeschlagen ist
+     */
+    private volatile boolean unreachable;
+    private volatile boolean closed;
+
+    /**
+     * Eine noch nicht gesendete Anfrage.
+     */
+    private record Outgoing(long id, byte[] line, CompletableFuture<ShardProtocol.ShardResponse> response) {
+    }
+
+    /**
+     * Eine bestehende Verbindung mit ihren gesendeten, noch unbeantworteten Anfragen.
+     */
+    private static final class Connection {
+        final Socket socket;
+        final OutputStream out;
+        final Map<Long, CompletableFuture<ShardProtocol.ShardResponse>> pending = new ConcurrentHashMap<>();
+        final AtomicBoolean open = new AtomicBoolean(true);
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream(), WRITE_BUFFER_BYTES);
+        }
+    }
+
+    /**
+     * Konstruktor für den Client. Die Verbindung wird beim ersten Aufruf im Hintergrund aufgebaut.
+     *
+     * @param host Rechner der Partition
+     * @param port Port der Partition
+     */
+    public ShardClient(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Liest eine Adresse im Format {@code <rechner>:<port>} oder {@code <port>} (lokaler Rechner).
+     *
+     * @param address Die Adresse
+     * @return Der Client
+     * @throws IllegalArgumentException Wenn die Adresse ungültig ist
+     */
+    public static ShardClient parse(String address) {
+        int separator = address.lastIndexOf(':');
+        String host = separator < 0 ? "localhost" : address.substring(0, separator).trim();
+        try {
+            return new ShardClient(host, Integer.parseInt(address.substring(separator + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungültige Partitionsadresse (erwartet <rechner>:<port>): " + address);
+        }
+    }
+
+    /**
+     * Übergibt eine Anfrage an den Sende-Thread (blockiert nicht).
+     *
+     * @param query         Attributnamen und Anfragewerte
+     * @param k             Anzahl der gesuchten Fälle
+     * @param deadlineNanos Frist (System.nanoTime), nach der die Partition die Anfrage nicht mehr berechnet
+     * @return Antwort der Partition; schlägt fehl, wenn die Partition nicht erreichbar ist, die
+     * Warteschlange voll ist oder die Partition einen Fehler meldet. Wird das Ergebnis abgebrochen,
+     * wird die Anfrage nicht mehr gesendet bzw. eine später eintreffende Antwort verworfen.
+     */
+    CompletableFuture<ShardProtocol.ShardResponse> send(Map<String, String> query, int k, long deadlineNanos) {
+        CompletableFuture<ShardProtocol.ShardResponse> response = new CompletableFuture<>();
+        if (closed) {
+            response.completeExceptionally(new IOException("Client bereits geschlossen"));
+            return response;
+        }
+        if (unreachable) {
+            response.completeExceptionally(new IOException("Partition " + this + " nicht erreichbar"));
+            return response;
+        }
+        startSender();
+
+        long id = nextId.incrementAndGet();
+        // Verbleibende Frist aufrunden, damit eine knappe Frist nicht als "keine Frist" (0) gesendet wird
+        long deadlineMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime() + 999_999));
+        byte[] line = (ShardProtocol.encodeRequest(new ShardProtocol.ShardRequest(id, k, deadlineMillis, query)) + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+        if (!outgoing.offer(new Outgoing(id, line, response))) {
+            response.completeExceptionally(new IOException("Sendewarteschlange für Partition " + this + " voll"));
+        }
+        return response;
+    }
+
+    /**
+     * Startet den Sende-Thread beim ersten Aufruf.
+     */
+    private void startSender() {
+        if (started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::sendLoop, "shard-sender-" + this);
+            thread.setDaemon(true);
+            sender = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Baut die Verbindung auf und schreibt die wartenden Anfragen, bis der Client geschlossen wird.
+     */
+    private void sendLoop() {
+        while (!closed) {
+            Connection current;
+            try {
+                current = connect();
+            } catch (IOException e) {
+                if (closed) {
+                    break;
+                }
+                unreachable = true;
+                failQueued(new IOException("Partition " + this + " nicht erreichbar: " + e.getMessage()));
+                try {
+                    Thread.sleep(RECONNECT_INTERVAL_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+                continue;
+            }
+            unreachable = false;
+
+            try {
+                writeRequests(current);
+            } catch (IOException e) {
+                disconnect(current, e);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        failQueued(new IOException("Client geschlossen"));
+    }
+
+    /**
+     * Baut eine neue Verbindung auf und startet ihren Lese-Thread.
+     *
+     * @return Die Verbindung
+     * @throws IOException Wenn die Partition nicht erreichbar ist
+     */
+    private Connection connect() throws IOException {
+        Socket socket = new Socket();
+        Connection opened;
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            opened = new Connection(socket);
+        } catch (IOException e) {
+            socket.close();
+            System.out.println("WARNING: Partition " + this + " nicht erreichbar: " + e.getMessage());
+            throw e;
+        }
+        connection = opened;
+        if (closed) {
+            disconnect(opened, new IOException("Client geschlossen"));
+            throw new IOException("Client geschlossen");
+        }
+        Thread reader = new Thread(() -> readResponses(opened), "shard-client-" + this);
+        reader.setDaemon(true);
+        reader.start();
+        System.out.println("INFO: Mit Partition " + this + " verbunden.");
+        return opened;
+    }
+
+    /**
+     * Schreibt die Anfragen aus der Warteschlange, solange die Verbindung besteht. Geleert wird der
+     * Schreibpuffer erst, wenn keine weitere Anfrage wartet.
+     *
+     * @throws IOException Wenn das Schreiben fehlschlägt oder die Verbindung getrennt wurde
+     */
+    private void writeRequests(Connection current) throws IOException, InterruptedException {
+        while (current.open.get()) {
+            Outgoing next = outgoing.poll(IDLE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            if (next == null || next.response().isDone()) {
+                // Nichts zu senden oder Frist bereits überschritten
+                continue;
+            }
+            current.pending.put(next.id(), next.response());
+            next.response().whenComplete((result, error) -> current.pending.remove(next.id()));
+            current.out.write(next.line());
+            if (outgoing.isEmpty()) {
+                current.out.flush();
+            }
+        }
+        throw new IOException("Verbindung getrennt");
+    }
+
+    /**
+     * Liest die Antworten einer Verbindung, bis sie geschlossen wird.
+     */
+    private void readResponses(Connection current) {
+        try (FrameReader in = new FrameReader(current.socket.getInputStream(), new byte[ConnectionLimits.DEFAULT_MAX_FRAME_BYTES])) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                ShardProtocol.ShardResponse response = ShardProtocol.decodeResponse(line);
+                CompletableFuture<ShardProtocol.ShardResponse> waiting = current.pending.remove(response.id());
+                if (waiting != null && response.error() != null) {
+                    waiting.completeExceptionally(new IOException("Partition meldet: " + response.error()));
+                } else if (waiting != null) {
+                    waiting.complete(response);
+                }
+            }
+            disconnect(current, new IOException("Verbindung von der Partition geschlossen"));
+        } catch (IOException | RuntimeException e) {
+            disconnect(current, e);
+        }
+    }
+
+    /**
+     * Schließt eine Verbindung und lässt ihre offenen Anfragen fehlschlagen. Kann mehrfach aufgerufen
+     * werden (Sende- und Lese-Thread).
+     */
+    private void disconnect(Connection current, Exception cause) {
+        if (current.open.compareAndSet(true, false)) {
+            if (!closed) {
+                System.out.println("WARNING: Verbindung zu Partition " + this + " getrennt: " + cause.getMessage());
+            }
+        }
+        if (connection == current) {
+            connection = null;
+        }
+        try {
+            current.socket.close();
+        } catch (IOException e) {
+            // Verbindung ist bereits geschlossen
+        }
+        current.pending.values().forEach(waiting -> waiting.completeExceptionally(cause));
+    }
+
+    /**
+     * Lässt alle noch nicht gesendeten Anfragen fehlschlagen.
+     */
+    private void failQueued(IOException cause) {
+        List<Outgoing> queued = new ArrayList<>();
+        outgoing.drainTo(queued);
+        queued.forEach(request -> request.response().completeExceptionally(cause));
+    }
+
+    /**
+     * Schließt die Verbindung; offene und wartende Anfragen schlagen fehl.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = sender;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        Connection current = connection;
+        if (current != null) {
+            disconnect(current, new IOException("Client geschlossen"));
+        }
+        failQueued(new IOException("Client geschlossen"));
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,11 @@
+package cluster;
+
+/**
+ * Ein Fall aus dem Top-k-Ergebnis einer Partition.
+ *
+ * @param caseName   Name des Falls
+ * @param similarity Ähnlichkeit zur Anfrage
+ * @param caseOrder  Position des Falls in der vollständigen Fallbasis (entscheidet bei Gleichstand)
+ */
+public record ShardHit(String caseName, double similarity, int caseOrder) {
+}
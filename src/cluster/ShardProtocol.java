@@ -0,0 +1,134 @@
+package cluster;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zeilenbasiertes JSON-Protokoll zwischen Front-Knoten und Partitionen.
+ *
+ * <p>
+ * Anfrage: {@code {"id":7,"k":1,"deadline":48,"query":{"Minerals":"350",...}}}<br>
+ * Antwort: {@code {"id":7,"caseCount":1200,"cases":[{"name":"Fall 4","similarity":0.93,"order":17}]}}<br>
+ * Fehler: {@code {"id":7,"error":"Frist abgelaufen"}}<br>
+ * Über die Kennung werden Antworten ihren Anfragen zugeordnet, sodass mehrere Anfragen gleichzeitig
+ * über eine Verbindung laufen können und Antworten in beliebiger Reihenfolge eintreffen dürfen.
+ * Die Frist ist die verbleibende Zeit des Front-Knotens in Millisekunden ab Empfang (0 = keine Frist);
+ * Anfragen, deren Frist vor Beginn der Berechnung abgelaufen ist, beantwortet die Partition mit einem Fehler.
+ * </p>
+ */
+final class ShardProtocol {
+
+    private ShardProtocol() {
+    }
+
+    /**
+     * Kennung für Anfragen, deren Kennung nicht gelesen werden kann
+     */
+    static final long UNKNOWN_ID = -1;
+
+    /**
+     * Anfrage an eine Partition.
+     *
+     * @param id             Kennung der Anfrage
+     * @param k              Anzahl der gesuchten Fälle
+     * @param deadlineMillis Verbleibende Frist in Millisekunden (0 = keine Frist)
+     * @param query          Attributnamen und Anfragewerte
+     */
+    record ShardRequest(long id, int k, long deadlineMillis, Map<String, String> query) {
+    }
+
+    /**
+     * Antwort einer Partition.
+     *
+     * @param id        Kennung der Anfrage
+     * @param caseCount Anzahl der Fälle in der Partition
+     * @param hits      Die besten Fälle der Partition, absteigend nach Ähnlichkeit
+     * @param error     Fehlermeldung, wenn die Anfrage nicht berechnet wurde (sonst null)
+     */
+    record ShardResponse(long id, int caseCount, List<ShardHit> hits, String error) {
+
+        static ShardResponse failed(long id, String error) {
+            return new ShardResponse(id, 0, List.of(), error);
+        }
+    }
+
+    static String encodeRequest(ShardRequest request) {
+        JsonObject query = new JsonObject();
+        request.query().forEach(query::addProperty);
+
+        JsonObject json = new JsonObject();
+        json.addProperty("id", request.id());
+        json.addProperty("k", request.k());
+        json.addProperty("deadline", request.deadlineMillis());
+        json.add("query", query);
+        return json.toString();
+    }
+
+    static ShardRequest decodeRequest(String line) {
+        JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+        Map<String, String> query = new HashMap<>();
+        for (Map.Entry<String, JsonElement> entry : json.getAsJsonObject("query").entrySet()) {
+            query.put(entry.getKey(), entry.getValue().isJsonNull() ? null : entry.getValue().getAsString());
+        }
+        long deadlineMillis = json.has("deadline") ? json.get("deadline").getAsLong() : 0;
+        return new ShardRequest(json.get("id").getAsLong(), json.get("k").getAsInt(), deadlineMillis, query);
+    }
+
+    /**
+     * Liest nur die Kennung einer (möglicherweise ungültigen) Anfrage, um einen Fehler zu melden.
+     *
+     * @return Die Kennung oder {@link #UNKNOWN_ID}
+     */
+    static long decodeRequestId(String line) {
+        try {
+            return JsonParser.parseString(line).getAsJsonObject().get("id").getAsLong();
+        } catch (RuntimeException e) {
+            return UNKNOWN_ID;
+        }
+    }
+
+    static String encodeResponse(ShardResponse response) {
+        if (response.error() != null) {
+            JsonObject json = new JsonObject();
+            json.addProperty("id", response.id());
+            json.addProperty("error", response.error());
+            return json.toString();
+        }
+
+        JsonArray cases = new JsonArray();
+        for (ShardHit hit : response.hits()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("name", hit.caseName());
+            entry.addProperty("similarity", hit.similarity());
+            entry.addProperty("order", hit.caseOrder());
+            cases.add(entry);
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("id", response.id());
+        json.addProperty("caseCount", response.caseCount());
+        json.add("cases", cases);
+        return json.toString();
+    }
+
+    static ShardResponse decodeResponse(String line) {
+        JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+        if (json.has("error")) {
+            return ShardResponse.failed(json.get("id").getAsLong(), json.get("error").getAsString());
+        }
+        List<ShardHit> hits = new ArrayList<>();
+        for (JsonElement element : json.getAsJsonArray("cases")) {
+            JsonObject entry = element.getAsJsonObject();
+            hits.add(new ShardHit(entry.get("name").getAsString(), entry.get("similarity").getAsDouble(),
+                    entry.get("order").getAsInt()));
+        }
+        return new ShardResponse(json.get("id").getAsLong(), json.get("caseCount").getAsInt(), hits, null);
+    }
+}
@@ -0,0 +1,180 @@
+package cluster;
+
+import cbr_util.CBREngine;
+import de.dfki.mycbr.core.casebase.Instance;
+import de.dfki.mycbr.core.similarity.Similarity;
+import de.dfki.mycbr.util.Pair;
+import transport.ConnectionLimits;
+import transport.FrameReader;
+import transport.FrameWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server einer Partition der Fallbasis. Beantwortet Top-k-Anfragen des Front-Knotens über das
+ * {@link ShardProtocol} mit den besten Fällen der lokal geladenen Partition.
+ *
+ * <p>
+ * Anfragen einer Verbindung werden parallel im Thread-Pool berechnet; die Antworten werden in der
+ * Reihenfolge ihrer Fertigstellung geschrieben und vom Front-Knoten über die Kennung zugeordnet.
+ * Jede Anfrage mit lesbarer Kennung erhält eine Antwort: Ungültige Anfragen, Anfragen, deren Frist
+ * vor Beginn der Berechnung abgelaufen ist, und Anfragen bei voller Warteschlange werden mit einem
+ * Fehler beantwortet, ohne die Fallbasis zu durchsuchen.
+ * </p>
+ */
+public class ShardServer {
+
+    /**
+     * Größe des Schreibpuffers je Verbindung
+     */
+    private static final int WRITE_BUFFER_BYTES = 8 * 1024;
+
+    /**
+     * Maximale Anzahl wartender Anfragen im Thread-Pool
+     */
+    private static final int MAX_QUEUED_REQUESTS = 256;
+
+    private final int port;
+    private final CBREngine cbrEngine;
+    private final int caseCount;
+
+    /**
+     * Threads für die Berechnung der Anfragen (gemeinsam für alle Verbindungen)
+     */
+    private final ExecutorService workers;
+
+    /**
+     * Konstruktor für den Server.
+     *
+     * @param port      Port, auf dem der Server lauscht
+     * @param cbrEngine Die mit der Partition initialisierte CBREngine
+     */
+    public ShardServer(int port, CBREngine cbrEngine) {
+        this.port = port;
+        this.cbrEngine = cbrEngine;
+        this.caseCount = cbrEngine.getCaseBase().getCases().size();
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS), runnable -> {
+            Thread thread = new Thread(runnable, "shard-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Nimmt Verbindungen von Front-Knoten entgegen (blockiert).
+     *
+     * @throws IOException Wenn der Port nicht geöffnet werden kann
+     */
+    public void run() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            System.out.println("INFO: Partition mit " + caseCount + " Fällen wartet auf Port " + port + " auf Front-Knoten...");
+            while (true) {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                System.out.println("INFO: Front-Knoten verbunden: " + socket.getRemoteSocketAddress());
+                new Thread(() -> serve(socket), "shard-connection").start();
+            }
+        }
+    }
+
+    /**
+     * Liest die Anfragen einer Verbindung und übergibt sie dem Thread-Pool.
+     *
+     * @param socket Die Verbindung zum Front-Knoten
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             FrameReader in = new FrameReader(socket.getInputStream(), new byte[ConnectionLimits.DEFAULT_MAX_FRAME_BYTES]);
+             Writer out = new FrameWriter(socket.getOutputStream(), new byte[WRITE_BUFFER_BYTES])) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String requestLine = line;
+                long received = System.nanoTime();
+                try {
+                    workers.execute(() -> respond(socket, out, handle(requestLine, received)));
+                } catch (RejectedExecutionException e) {
+                    respond(socket, out, error(ShardProtocol.decodeRequestId(requestLine), "Partition überlastet"));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("ERROR: I/O Fehler bei " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+        }
+        System.out.println("INFO: Verbindung mit Front-Knoten " + socket.getRemoteSocketAddress() + " geschlossen.");
+    }
+
+    /**
+     * Schreibt eine Antwort (Antworten mehrerer Worker werden nacheinander geschrieben).
+     *
+     * @param response Die Antwort oder null, wenn keine Antwort möglich ist
+     */
+    private void respond(Socket socket, Writer out, String response) {
+        if (response == null) {
+            return;
+        }
+        synchronized (out) {
+            try {
+                out.write(response);
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                System.out.println("ERROR: Antwort an " + socket.getRemoteSocketAddress() + " fehlgeschlagen: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Berechnet die besten Fälle der Partition für eine Anfrage.
+     *
+     * @param line     Die Anfrage im {@link ShardProtocol}
+     * @param received Zeitpunkt des Empfangs (System.nanoTime), ab dem die Frist der Anfrage läuft
+     * @return Die Antwort oder null, wenn die Anfrage nicht einmal eine lesbare Kennung hat
+     */
+    private String handle(String line, long received) {
+        ShardProtocol.ShardRequest request;
+        try {
+            request = ShardProtocol.decodeRequest(line);
+        } catch (RuntimeException e) {
+            System.out.println("WARNING: Ungültige Partitionsanfrage: " + e.getMessage());
+            return error(ShardProtocol.decodeRequestId(line), "Ungültige Anfrage: " + e.getMessage());
+        }
+
+        // Abgelaufene Anfragen nicht mehr berechnen, der Front-Knoten wartet nicht mehr auf sie
+        if (request.deadlineMillis() > 0 && System.nanoTime() - received > TimeUnit.MILLISECONDS.toNanos(request.deadlineMillis())) {
+            return error(request.id(), "Frist abgelaufen");
+        }
+
+        List<ShardHit> hits = new ArrayList<>();
+        try {
+            for (Pair<Instance, Similarity> result : cbrEngine.retrieveTopCasesOrThrow(request.query(), request.k())) {
+                String caseName = result.getFirst().getName();
+                hits.add(new ShardHit(caseName, result.getSecond().getValue(), cbrEngine.getCaseOrder(caseName)));
+            }
+        } catch (Exception e) {
+            System.out.println("ERROR: Retrieval der Partition fehlgeschlagen: " + e.getMessage());
+            return error(request.id(), "Retrieval fehlgeschlagen: " + e.getMessage());
+        }
+        return ShardProtocol.encodeResponse(new ShardProtocol.ShardResponse(request.id(), caseCount, hits, null));
+    }
+
+    /**
+     * @return Die Fehlerantwort oder null, wenn die Kennung der Anfrage unbekannt ist
+     */
+    private static String error(long id, String message) {
+        if (id == ShardProtocol.UNKNOWN_ID) {
+            return null;
+        }
+        return ShardProtocol.encodeResponse(ShardProtocol.ShardResponse.failed(id, message));
+    }
+}
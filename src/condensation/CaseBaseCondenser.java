@@ -0,0 +1,218 @@
+package condensation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Verfahren zur Verkleinerung der Fallbasis auf Basis vorberechneter Ähnlichkeiten.
+ *
+ * <p>
+ * Entscheidung einer Anfrage ist – wie im {@code RetrievalHelper} – die Kategorie des ähnlichsten Falls;
+ * bei gleicher Ähnlichkeit gewinnt der Fall, der in der Fallbasis zuerst steht (wie beim sortierten
+ * Retrieval und beim Branch-and-Bound).
+ * </p>
+ * <ul>
+ *     <li>CNN (Condensed Nearest Neighbour, Hart): Fälle werden nur übernommen, wenn die reduzierte
+ *     Fallbasis sonst für eine Anfrage anders entscheiden würde als die Referenz-Fallbasis. Übernommen
+ *     wird dann der Fall, der in der Referenz gewinnt; die Anfrage wird dadurch garantiert korrekt.</li>
+ *     <li>ENN (Edited Nearest Neighbour, Wilson): Ein Fall wird entfernt, wenn die Mehrheit seiner k
+ *     nächsten Nachbarn einer anderen Kategorie angehört (Rauschen und Grenzfälle).</li>
+ * </ul>
+ */
+public class CaseBaseCondenser {
+
+    /**
+     * Anzahl der Nachbarn, die bei ENN über die Kategorie eines Falls abstimmen
+     */
+    public static final int ENN_NEIGHBOURS = 3;
+
+    /**
+     * Kategorie je Fall (Index = Fallindex)
+     */
+    private final String[] categories;
+
+    /**
+     * Ähnlichkeiten der Anfragen zu allen Fällen ([Anfrage][Fall])
+     */
+    private final double[][] queryScores;
+
+    /**
+     * Berechnet die Ähnlichkeiten eines Falls (als Anfrage) zu allen Fällen
+     */
+    private final IntFunction<double[]> caseScores;
+
+    /**
+     * Konstruktor für den Condenser.
+     *
+     * @param categories  Kategorie je Fall
+     * @param queryScores Ähnlichkeiten der Anfragen zu allen Fällen ([Anfrage][Fall])
+     * @param caseScores  Berechnet die Ähnlichkeiten eines Falls (als Anfrage) zu allen Fällen; wird nur
+     *                    bei ENN und CNN mit Fällen als Anfragen aufgerufen
+     */
+    public CaseBaseCondenser(String[] categories, double[][] queryScores, IntFunction<double[]> caseScores) {
+        this.categories = categories;
+        this.queryScores = queryScores;
+        this.caseScores = caseScores;
+    }
+
+    /**
+     * Führt CNN aus. Die Ähnlichkeiten der Fälle untereinander werden zeilenweise und nur für Anfragen
+     * berechnet, deren Referenzfall noch nicht übernommen wurde, sodass keine N×N-Matrix entsteht.
+     *
+     * @param candidates        Fälle, aus denen ausgewählt werden darf (zugleich die Referenz-Fallbasis)
+     * @param includeCaseQueries true, wenn zusätzlich die Fälle selbst als Anfragen dienen (klassisches CNN)
+     * @return Die ausgewählten Fälle
+     */
+    public boolean[] condense(boolean[] candidates, boolean includeCaseQueries) {
+        // Referenzentscheidung je Anfrage: gewinnender Fall unter allen Kandidaten
+        int[] queryWinners = new int[queryScores.length];
+        for (int q = 0; q < queryScores.length; q++) {
+            queryWinners[q] = winner(queryScores[q], candidates);
+        }
+        int[] caseWinners = new int[categories.length];
+        Arrays.fill(caseWinners, -1);
+        if (includeCaseQueries) {
+            for (int c = 0; c < categories.length; c++) {
+                if (candidates[c]) {
+                    caseWinners[c] = winner(caseScores.apply(c), candidates);
+                }
+            }
+        }
+
+        boolean[] kept = new boolean[categories.length];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int q = 0; q < queryScores.length; q++) {
+                double[] scores = queryScores[q];
+                changed |= keepIfWrong(queryWinners[q], kept, () -> scores);
+            }
+            for (int c = 0; c < categories.length; c++) {
+                int caseQuery = c;
+                changed |= keepIfWrong(caseWinners[c], kept, () -> caseScores.apply(caseQuery));
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Übernimmt den Referenzfall einer Anfrage, wenn die reduzierte Fallbasis anders entscheiden würde.
+     * Ist der Referenzfall bereits übernommen, gewinnt er auch in der reduzierten Fallbasis, sodass die
+     * Ähnlichkeiten dann nicht benötigt werden.
+     *
+     * @param reference Gewinnender Fall in der Referenz-Fallbasis (-1 = keine Anfrage)
+     * @param kept      Die bisher ausgewählten Fälle
+     * @param scores    Liefert die Ähnlichkeiten der Anfrage zu allen Fällen
+     * @return true, wenn ein Fall übernommen wurde
+     */
+    private boolean keepIfWrong(int reference, boolean[] kept, Supplier<double[]> scores) {
+        if (reference < 0 || kept[reference]) {
+            return false;
+        }
+        int current = winner(scores.get(), kept);
+        if (current < 0 || !categories[current].equals(categories[reference])) {
+            kept[reference] = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Führt ENN aus.
+     *
+     * @param candidates Zu prüfende Fälle (nur diese stimmen als Nachbarn ab)
+     * @return Die Fälle, deren Kategorie von der Mehrheit ihrer Nachbarn bestätigt wird
+     */
+    public boolean[] edit(boolean[] candidates) {
+        boolean[] kept = candidates.clone();
+        for (int c = 0; c < categories.length; c++) {
+            if (candidates[c] && !categories[c].equals(majorityOfNeighbours(c, candidates))) {
+                kept[c] = false;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Bestimmt die Mehrheitskategorie der nächsten Nachbarn eines Falls (ohne den Fall selbst).
+     * Bei Stimmengleichheit entscheidet der nächste Nachbar.
+     */
+    private String majorityOfNeighbours(int caseIndex, boolean[] candidates) {
+        boolean[] available = candidates.clone();
+        available[caseIndex] = false;
+        double[] scores = caseScores.apply(caseIndex);
+
+        Map<String, Integer> votes = new HashMap<>();
+        String nearest = null;
+        String majority = null;
+        int majorityVotes = 0;
+        for (int n = 0; n < ENN_NEIGHBOURS; n++) {
+            int neighbour = winner(scores, available);
+            if (neighbour < 0) {
+                break;
+            }
+            available[neighbour] = false;
+            String category = categories[neighbour];
+            if (nearest == null) {
+                nearest = category;
+            }
+            int count = votes.merge(category, 1, Integer::sum);
+            if (count > majorityVotes) {
+                majority = category;
+                majorityVotes = count;
+            }
+        }
+        // Stimmengleichheit: nächster Nachbar entscheidet
+        if (nearest != null && votes.get(nearest) == majorityVotes) {
+            return nearest;
+        }
+        return majority != null ? majority : categories[caseIndex];
+    }
+
+    /**
+     * Ermittelt die Entscheidung jeder Anfrage für eine (reduzierte) Fallbasis.
+     *
+     * @param kept Die Fälle der Fallbasis
+     * @return Kategorie je Anfrage (null, falls die Fallbasis leer ist)
+     */
+    public String[] decide(boolean[] kept) {
+        String[] decisions = new String[queryScores.length];
+        for (int q = 0; q < queryScores.length; q++) {
+            int winner = winner(queryScores[q], kept);
+            decisions[q] = winner >= 0 ? categories[winner] : null;
+        }
+        return decisions;
+    }
+
+    /**
+     * Ermittelt den ähnlichsten Fall unter den ausgewählten Fällen (bei Gleichstand der erste).
+     *
+     * @return Index des Falls oder -1, wenn kein Fall ausgewählt ist
+     */
+    private static int winner(double[] scores, boolean[] selected) {
+        int best = -1;
+        for (int c = 0; c < scores.length; c++) {
+            if (selected[c] && (best < 0 || scores[c] > scores[best])) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param selection Auswahl von Fällen
+     * @return Anzahl der ausgewählten Fälle
+     */
+    public static int count(boolean[] selection) {
+        int count = 0;
+        for (boolean s : selection) {
+            if (s) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,271 @@
+package condensation;
+
+import cbr_util.CBREngine;
+import cbr_util.CaseColumns;
+import cbr_util.RetrievalHelper;
+import de.dfki.mycbr.core.DefaultCaseBase;
+import de.dfki.mycbr.core.casebase.Attribute;
+import de.dfki.mycbr.core.casebase.Instance;
+import de.dfki.mycbr.core.model.AttributeDesc;
+import de.dfki.mycbr.core.similarity.Similarity;
+import de.dfki.mycbr.io.XMLExporter;
+import de.dfki.mycbr.util.Pair;
+import model.Request;
+import util.GameStatusProcessor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Offline-Werkzeug zur Verkleinerung der Fallbasis.
+ *
+ * <p>
+ * Lädt das Projekt über die {@link CBREngine}, spielt eine Menge aufgezeichneter Spielstatus-Anfragen
+ * (eine JSON-Anfrage je Zeile, wie sie die Bots senden, z. B. aufgezeichnet mit {@code Main --replay-log})
+ * gegen die Fallbasis ab und entfernt mit CNN und/oder ENN Fälle, die die Top-1-Entscheidung nicht
+ * beeinflussen. Geschrieben werden das Projekt mit der reduzierten Fallbasis sowie ein Bericht über
+ * Größenreduktion und Übereinstimmung der Entscheidungen.
+ * </p>
+ * <p>
+ * Start: {@code java condensation.CondensationTool <replay.jsonl> <ausgabe.prj> [cnn|enn|enn-cnn]
+ * [--projekt <pfad.prj>] [--nur-replay]}
+ * </p>
+ */
+public class CondensationTool {
+
+    /**
+     * Verfahren, wenn keines angegeben wird
+     */
+    private static final String DEFAULT_ALGORITHM = "cnn";
+
+    /**
+     * Aufrufbeschreibung bei fehlenden oder ungültigen Argumenten
+     */
+    private static final String USAGE = "ERROR: Aufruf: CondensationTool <replay.jsonl> <ausgabe.prj> [cnn|enn|enn-cnn] [--projekt <pfad.prj>] [--nur-replay]";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println(USAGE);
+            return;
+        }
+        Path replayPath = Path.of(args[0]);
+        String outputPath = args[1];
+        String algorithm = DEFAULT_ALGORITHM;
+        String projectPath = null;
+        boolean includeCaseQueries = true;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--projekt" -> {
+                    if (i + 1 >= args.length) {
+                        System.out.println("ERROR: Fehlender Pfad nach --projekt");
+                        System.out.println(USAGE);
+                        return;
+                    }
+                    projectPath = args[++i];
+                }
+                case "--nur-replay" -> includeCaseQueries = false;
+                case "cnn", "enn", "enn-cnn" -> algorithm = args[i];
+                default -> {
+                    System.out.println("ERROR: Unbekanntes Argument: " + args[i]);
+                    System.out.println(USAGE);
+                    return;
+                }
+            }
+        }
+
+        // Projekt über die CBREngine laden
+        CBREngine cbrEngine = CBREngine.getInstance();
+        if (projectPath != null) {
+            cbrEngine.init(projectPath);
+        } else {
+            cbrEngine.init();
+        }
+        if (cbrEngine.getCaseBase() == null) {
+            System.out.println("ERROR: Projekt konnte nicht geladen werden.");
+            return;
+        }
+
+        List<Map<String, String>> replay = readReplay(replayPath);
+        if (replay.isEmpty()) {
+            System.out.println("ERROR: Keine gültigen Anfragen in " + replayPath);
+            return;
+        }
+
+        // Reihenfolge der Fälle wie beim Retrieval (entscheidet bei Gleichstand)
+        CaseColumns caseColumns = cbrEngine.getCaseColumns();
+        Instance[] cases = caseColumns != null
+                ? caseColumns.getCases()
+                : cbrEngine.getCaseBase().getCases().toArray(new Instance[0]);
+        String[] categories = new String[cases.length];
+        for (int c = 0; c < cases.length; c++) {
+            categories[c] = RetrievalHelper.getCategory(cases[c].getName());
+        }
+
+        // Ähnlichkeiten der Replay-Anfragen einmalig berechnen, die der Fälle untereinander nur bei Bedarf
+        // zeilenweise (eine N×N-Matrix wäre bei großen Fallbasen nicht speicherbar)
+        Map<Instance, Integer> caseIndex = new IdentityHashMap<>();
+        for (int c = 0; c < cases.length; c++) {
+            caseIndex.put(cases[c], c);
+        }
+        double[][] queryScores = new double[replay.size()][];
+        for (int q = 0; q < queryScores.length; q++) {
+            queryScores[q] = score(cbrEngine, caseIndex, replay.get(q));
+        }
+
+        // Verfahren ausführen
+        CaseBaseCondenser condenser = new CaseBaseCondenser(categories, queryScores, c -> {
+            try {
+                return score(cbrEngine, caseIndex, toQuery(cases[c]));
+            } catch (Exception e) {
+                throw new IllegalStateException("Fall " + cases[c].getName() + " konnte nicht bewertet werden", e);
+            }
+        });
+        boolean[] all = new boolean[cases.length];
+        Arrays.fill(all, true);
+        boolean[] kept = switch (algorithm) {
+            case "enn" -> condenser.edit(all);
+            case "enn-cnn" -> condenser.condense(condenser.edit(all), includeCaseQueries);
+            default -> condenser.condense(all, includeCaseQueries);
+        };
+
+        // Übereinstimmung der Entscheidungen mit der vollständigen Fallbasis
+        String[] reference = condenser.decide(all);
+        String[] reduced = condenser.decide(kept);
+        int agreeing = 0;
+        for (int q = 0; q < reference.length; q++) {
+            if (reference[q] != null && reference[q].equals(reduced[q])) {
+                agreeing++;
+            }
+        }
+
+        double fullMicrosPerQuery = measureMicrosPerQuery(caseColumns, replay, cbrEngine);
+
+        // Reduzierte Fallbasis schreiben
+        DefaultCaseBase caseBase = cbrEngine.getCaseBase();
+        List<String> removed = new ArrayList<>();
+        for (int c = 0; c < cases.length; c++) {
+            if (!kept[c]) {
+                caseBase.removeCase(cases[c]);
+                removed.add(cases[c].getName());
+                // Instanz auch aus dem Konzept entfernen, sofern keine andere Fallbasis sie verwendet
+                String name = cases[c].getName();
+                if (caseBase.getProject().getCaseBases().values().stream().noneMatch(base -> base.containsCase(name) != null)) {
+                    cases[c].getConcept().removeInstance(name);
+                }
+            }
+        }
+        XMLExporter.save(caseBase.getProject(), outputPath);
+
+        double reducedMicrosPerQuery = measureMicrosPerQuery(CaseColumns.build(cbrEngine.getConcept(), caseBase), replay, cbrEngine);
+
+        // Bericht
+        List<String> report = new ArrayList<>();
+        report.add("Verfahren: " + algorithm + (includeCaseQueries ? "" : " (nur Replay-Anfragen)"));
+        report.add("Replay-Anfragen: " + replay.size() + " (" + replayPath + ")");
+        report.add(String.format("Fälle: %d -> %d (Reduktion %.1f%%)",
+                cases.length, CaseBaseCondenser.count(kept), 100.0 * removed.size() / cases.length));
+        report.add(String.format("Übereinstimmung der Top-1-Entscheidung: %d von %d (%.2f%%)",
+                agreeing, reference.length, 100.0 * agreeing / reference.length));
+        report.add(String.format("Bewertung je Anfrage: %.1f µs -> %.1f µs", fullMicrosPerQuery, reducedMicrosPerQuery));
+        report.add("Verbleibende Fälle je Kategorie: " + keptPerCategory(categories, kept));
+        report.add("Entfernte Fälle: " + removed);
+
+        Path reportPath = Path.of(outputPath.replaceFirst("\\.prj$", "") + ".report.txt");
+        Files.write(reportPath, report, StandardCharsets.UTF_8);
+        report.forEach(line -> System.out.println("INFO: " + line));
+        System.out.println("INFO: Reduzierte Fallbasis gespeichert: " + outputPath + ", Bericht: " + reportPath);
+    }
+
+    /**
+     * Liest die aufgezeichneten Anfragen (eine JSON-Anfrage je Zeile).
+     */
+    private static List<Map<String, String>> readReplay(Path replayPath) throws IOException {
+        List<Map<String, String>> queries = new ArrayList<>();
+        int invalid = 0;
+        for (String line : Files.readAllLines(replayPath, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Request request = Request.fromFlatJson(line);
+                if (request.isValid()) {
+                    queries.add(GameStatusProcessor.extractAttributes(request.gameStatus()));
+                } else {
+                    invalid++;
+                }
+            } catch (IllegalArgumentException e) {
+                invalid++;
+            }
+        }
+        if (invalid > 0) {
+            System.out.println("WARNING: " + invalid + " ungültige Anfragen im Replay übersprungen.");
+        }
+        return queries;
+    }
+
+    /**
+     * Berechnet die Ähnlichkeit einer Anfrage zu jedem Fall (Index wie in {@code caseIndex}).
+     * Nutzt die spaltenorientierte Fallbasis, sonst das myCBR-Retrieval der CBREngine.
+     */
+    private static double[] score(CBREngine cbrEngine, Map<Instance, Integer> caseIndex, Map<String, String> query) throws Exception {
+        CaseColumns caseColumns = cbrEngine.getCaseColumns();
+        if (caseColumns != null) {
+            return caseColumns.score(query, cbrEngine.getSimilarityKernel());
+        }
+        double[] scores = new double[caseIndex.size()];
+        for (Pair<Instance, Similarity> result : cbrEngine.retrieveCases(query)) {
+            scores[caseIndex.get(result.getFirst())] = result.getSecond().getValue();
+        }
+        return scores;
+    }
+
+    /**
+     * Misst die Bewertungszeit je Anfrage über die spaltenorientierte Fallbasis (nach einem Aufwärmdurchlauf).
+     *
+     * @return Mikrosekunden je Anfrage oder NaN, falls die Fallbasis nicht spaltenorientiert vorliegt
+     */
+    private static double measureMicrosPerQuery(CaseColumns caseColumns, List<Map<String, String>> queries, CBREngine cbrEngine) throws Exception {
+        if (caseColumns == null) {
+            return Double.NaN;
+        }
+        long start = 0;
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            for (Map<String, String> query : queries) {
+                caseColumns.score(query, cbrEngine.getSimilarityKernel());
+            }
+        }
+        return (System.nanoTime() - start) / 1000.0 / queries.size();
+    }
+
+    /**
+     * Wandelt einen Fall in eine Anfrage mit denselben Attributwerten um.
+     */
+    private static Map<String, String> toQuery(Instance instance) {
+        Map<String, String> query = new HashMap<>();
+        for (Map.Entry<AttributeDesc, Attribute> entry : instance.getAttributes().entrySet()) {
+            query.put(entry.getKey().getName(), entry.getValue().getValueAsString());
+        }
+        return query;
+    }
+
+    /**
+     * Zählt die verbleibenden Fälle je Kategorie.
+     */
+    private static Map<String, Integer> keptPerCategory(String[] categories, boolean[] kept) {
+        Map<String, Integer> perCategory = new TreeMap<>();
+        for (int c = 0; c < categories.length; c++) {
+            perCategory.merge(categories[c], kept[c] ? 1 : 0, Integer::sum);
+        }
+        return perCategory;
+    }
+}
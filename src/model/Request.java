@@ -1,15 +1,24 @@
 package model;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 /**
- * Die Request-Klasse kapselt eine Anfrage, die den aktuellen Spielstatus enthält.
+ * Die Request-Klasse kapselt eine Anfrage, die den aktuellen Spielstatus und optional den Namen
+ * des zu verwendenden Projekts (Feld {@code "project"}) enthält.
  * Sie ermöglicht die Erstellung einer Instanz aus einer JSON-Darstellung und
  * überprüft die Gültigkeit der Anfrage.
  * Die Klasse ist als `record` implementiert, was bedeutet, dass sie immutable ist
  * und automatisch Konstruktor, Getter, `equals`, `hashCode` und `toString` generiert.
  */
-public record Request(GameStatus gameStatus) {
+public record Request(GameStatus gameStatus, String project) {
+
+    /**
+     * Name des optionalen Feldes, über das eine Anfrage das Projekt wählt
+     */
+    public static final String PROJECT_FIELD = "project";
 
     /**
      * Erstellt eine Request-Instanz aus einem flachen JSON-String.
@@ -27,9 +36,12 @@ public record Request(GameStatus gameStatus) {
             // Gson-Instanz für die JSON-Dekodierung
             Gson gson = new Gson();
             // JSON-String in ein GameStatus-Objekt konvertieren
-            GameStatus gameStatus = gson.fromJson(flatJson, GameStatus.class);
+            JsonObject json = JsonParser.parseString(flatJson).getAsJsonObject();
+            GameStatus gameStatus = gson.fromJson(json, GameStatus.class);
+            // Optionales Projekt (null = Standardprojekt)
+            JsonElement project = json.get(PROJECT_FIELD);
             // Rückgabe einer neuen Request-Instanz mit dem dekodierten GameStatus
-            return new Request(gameStatus);
+            return new Request(gameStatus, project != null && !project.isJsonNull() ? project.getAsString() : null);
         } catch (Exception e) {
             // Fehlerbehandlung bei ungültigem JSON-Format
             throw new IllegalArgumentException("Ungültiges JSON-Format: " + flatJson, e);
@@ -52,7 +64,7 @@ public record Request(GameStatus gameStatus) {
 
     /**
      * Gibt eine String-Repräsentation der Request zurück.
-     * Die Darstellung enthält den enthaltenen GameStatus.
+     * Die Darstellung enthält den enthaltenen GameStatus und das gewählte Projekt.
      *
      * @return String-Darstellung der Request.
      */
@@ -60,6 +72,7 @@ public record Request(GameStatus gameStatus) {
     public String toString() {
         return "Request{" +
                 "gameStatus=" + gameStatus +
+                ", project=" + project +
                 '}';
     }
 }
@@ -35,7 +35,7 @@ public class Response {
      * @param categorizedCases  Map, die Fallnamen mit ihren zugehörigen Kategorien verbindet.
      * @return Eine formatierte Antwort als JSON-String.
      */
-    public String formatCombinedResponse(Map<String, Double> similarityResults, Map<String, String> categorizedCases) {
+    public static String formatCombinedResponse(Map<String, Double> similarityResults, Map<String, String> categorizedCases) {
         // Erstelle eine JSON-Struktur
         JsonObject jsonResponse = new JsonObject();
 
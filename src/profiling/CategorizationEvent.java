@@ -0,0 +1,25 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis: Zuordnung der gefundenen Fälle zu Kategorien (Entscheidung).
+ */
+@Name("cbr.Categorization")
+@Label("Kategorisierung")
+@Category({"CBR-Agent", "Anfragen"})
+@Description("Bestimmung der Kategorie des besten Falls")
+@StackTrace(false)
+public class CategorizationEvent extends Event {
+
+    @Label("Fall")
+    public String caseName;
+
+    @Label("Kategorie")
+    public String category;
+}
@@ -0,0 +1,25 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis: Ein Client hat sich verbunden.
+ */
+@Name("cbr.ConnectionAccepted")
+@Label("Verbindung angenommen")
+@Category({"CBR-Agent", "Verbindungen"})
+@Description("Ein Bot hat sich über TCP oder Shared Memory verbunden")
+@StackTrace(false)
+public class ConnectionAcceptedEvent extends Event {
+
+    @Label("Verbindung")
+    public String connection;
+
+    @Label("Transport")
+    public String transport;
+}
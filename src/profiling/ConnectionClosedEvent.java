@@ -0,0 +1,28 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis: Eine Client-Verbindung wurde geschlossen. Die Dauer entspricht der Verbindungsdauer.
+ */
+@Name("cbr.ConnectionClosed")
+@Label("Verbindung geschlossen")
+@Category({"CBR-Agent", "Verbindungen"})
+@Description("Eine Verbindung wurde geschlossen; die Dauer ist die gesamte Verbindungsdauer")
+@StackTrace(false)
+public class ConnectionClosedEvent extends Event {
+
+    @Label("Verbindung")
+    public String connection;
+
+    @Label("Transport")
+    public String transport;
+
+    @Label("Anfragen")
+    public long requests;
+}
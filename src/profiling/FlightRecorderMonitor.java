@@ -0,0 +1,152 @@
+package profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fortlaufende JFR-Aufzeichnung mit geringem Overhead für den Produktionsbetrieb.
+ *
+ * <p>
+ * Die Aufzeichnung läuft als Ringpuffer (begrenzt durch Alter und Größe) mit den Einstellungen des
+ * JFR-Profils "default" sowie allen Ereignissen des CBR-Agenten. Sie wird in eine Datei geschrieben,
+ * wenn eine Anfrage die Latenzschwelle überschreitet (höchstens einmal je {@link #DUMP_COOLDOWN}),
+ * auf Anforderung über {@link #dump(String)} oder von außen mit
+ * {@code jcmd <pid> JFR.dump name=cbr-agent filename=<datei>.jfr}.
+ * </p>
+ */
+public class FlightRecorderMonitor {
+
+    /**
+     * Name der Aufzeichnung (für jcmd)
+     */
+    public static final String RECORDING_NAME = "cbr-agent";
+
+    /**
+     * Standard-Latenzschwelle für eine Anfrage
+     */
+    public static final Duration DEFAULT_LATENCY_THRESHOLD = Duration.ofMillis(50);
+
+    /**
+     * Maximales Alter der Daten im Ringpuffer
+     */
+    private static final Duration MAX_AGE = Duration.ofMinutes(10);
+
+    /**
+     * Maximale Größe des Ringpuffers in Bytes
+     */
+    private static final long MAX_SIZE = 100L * 1024 * 1024;
+
+    /**
+     * Mindestabstand zwischen zwei automatischen Dumps, damit eine Lastspitze nicht zu einer Flut von Dateien führt
+     */
+    private static final Duration DUMP_COOLDOWN = Duration.ofMinutes(1);
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /**
+     * Alle Ereignisse des CBR-Agenten
+     */
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            ConnectionAcceptedEvent.class, ConnectionClosedEvent.class, RequestDecodeEvent.class,
+            RetrievalEvent.class, CategorizationEvent.class, ResponseWriteEvent.class, RequestEvent.class);
+
+    private final Path dumpDirectory;
+    private final Duration latencyThreshold;
+    private Recording recording;
+    private RecordingStream slowRequests;
+
+    /**
+     * Zeitpunkt (System.nanoTime) des letzten automatischen Dumps
+     */
+    private final AtomicLong lastDump = new AtomicLong(System.nanoTime() - DUMP_COOLDOWN.toNanos());
+
+    /**
+     * Konstruktor für den Monitor.
+     *
+     * @param dumpDirectory    Verzeichnis für die geschriebenen Aufzeichnungen
+     * @param latencyThreshold Latenzschwelle einer Anfrage, ab der automatisch geschrieben wird
+     */
+    public FlightRecorderMonitor(Path dumpDirectory, Duration latencyThreshold) {
+        this.dumpDirectory = dumpDirectory;
+        this.latencyThreshold = latencyThreshold;
+    }
+
+    /**
+     * Startet die fortlaufende Aufzeichnung und die Überwachung der Latenzschwelle.
+     *
+     * @throws IOException    Wenn das Verzeichnis nicht angelegt werden kann
+     * @throws ParseException Wenn das JFR-Profil nicht gelesen werden kann
+     */
+    public void start() throws IOException, ParseException {
+        Files.createDirectories(dumpDirectory);
+
+        recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(MAX_AGE);
+        recording.setMaxSize(MAX_SIZE);
+        for (Class<? extends Event> event : EVENTS) {
+            recording.enable(event);
+        }
+        recording.start();
+
+        // Eigener Stream, der nur Anfragen oberhalb der Schwelle erhält
+        slowRequests = new RecordingStream();
+        slowRequests.enable(RequestEvent.class).withThreshold(latencyThreshold);
+        slowRequests.onEvent(RequestEvent.NAME, event -> {
+            long now = System.nanoTime();
+            long last = lastDump.get();
+            if (now - last >= DUMP_COOLDOWN.toNanos() && lastDump.compareAndSet(last, now)) {
+                System.out.println("WARNING: Anfrage von " + event.getString("connection") + " dauerte "
+                        + event.getDuration().toMillis() + " ms (Schwelle " + latencyThreshold.toMillis() + " ms)");
+                dump("latenz");
+            }
+        });
+        slowRequests.startAsync();
+
+        System.out.println("INFO: JFR-Aufzeichnung gestartet (Schwelle " + latencyThreshold.toMillis()
+                + " ms, Ausgabe nach " + dumpDirectory + ")");
+    }
+
+    /**
+     * Schreibt den aktuellen Inhalt des Ringpuffers in eine Datei.
+     *
+     * @param reason Anlass, wird Teil des Dateinamens
+     * @return Pfad der geschriebenen Datei oder null bei einem Fehler
+     */
+    public Path dump(String reason) {
+        Path target = dumpDirectory.resolve(RECORDING_NAME + "-" + LocalDateTime.now().format(TIMESTAMP) + "-" + reason + ".jfr");
+        try {
+            recording.dump(target);
+            System.out.println("INFO: JFR-Aufzeichnung geschrieben: " + target);
+            return target;
+        } catch (IOException e) {
+            System.out.println("ERROR: JFR-Aufzeichnung konnte nicht geschrieben werden: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Beendet die Aufzeichnung.
+     */
+    public void stop() {
+        if (slowRequests != null) {
+            slowRequests.close();
+        }
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}
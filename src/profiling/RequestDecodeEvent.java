@@ -0,0 +1,28 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis: Umwandlung einer JSON-Anfrage in den Spielstatus und die Abfrageattribute.
+ */
+@Name("cbr.RequestDecode")
+@Label("Anfrage dekodiert")
+@Category({"CBR-Agent", "Anfragen"})
+@Description("JSON-Dekodierung, Gültigkeitsprüfung und Extraktion der Abfrageattribute")
+@StackTrace(false)
+public class RequestDecodeEvent extends Event {
+
+    @Label("Größe")
+    @Description("Größe der Anfrage in UTF-8 ohne Zeilenende")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Gültig")
+    public boolean valid;
+}
@@ -0,0 +1,34 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis: Gesamte Verarbeitung einer Anfrage (Dekodierung bis fertige Antwort).
+ * Dient dem {@link FlightRecorderMonitor} zur Erkennung überschrittener Latenzschwellen.
+ */
+@Name(RequestEvent.NAME)
+@Label("Anfrage verarbeitet")
+@Category({"CBR-Agent", "Anfragen"})
+@Description("Gesamte Verarbeitung einer Anfrage von der Dekodierung bis zur formatierten Antwort")
+@StackTrace(false)
+public class RequestEvent extends Event {
+
+    /**
+     * Name des Ereignisses in der Aufzeichnung
+     */
+    public static final String NAME = "cbr.Request";
+
+    @Label("Verbindung")
+    public String connection;
+
+    @Label("Gültig")
+    public boolean valid;
+
+    @Label("Kategorie")
+    public String category;
+}
@@ -0,0 +1,28 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis: Schreiben einer Antwort an den Client.
+ */
+@Name("cbr.ResponseWrite")
+@Label("Antwort geschrieben")
+@Category({"CBR-Agent", "Verbindungen"})
+@Description("Senden der Antwort über den jeweiligen Transport")
+@StackTrace(false)
+public class ResponseWriteEvent extends Event {
+
+    @Label("Verbindung")
+    public String connection;
+
+    @Label("Größe")
+    @Description("Größe der Antwort in UTF-8 ohne Zeilenende")
+    @DataAmount
+    public long responseBytes;
+}
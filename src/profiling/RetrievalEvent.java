@@ -0,0 +1,34 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis: Retrieval über die Fallbasis.
+ */
+@Name("cbr.Retrieval")
+@Label("Retrieval")
+@Category({"CBR-Agent", "Anfragen"})
+@Description("Berechnung der ähnlichsten Fälle (ohne Treffer im Ergebnis-Cache)")
+@StackTrace(false)
+public class RetrievalEvent extends Event {
+
+    @Label("Verfahren")
+    public String mode;
+
+    @Label("Fälle in der Fallbasis")
+    public int caseCount;
+
+    @Label("Ergebnisse")
+    public int resultCount;
+
+    @Label("Bester Fall")
+    public String topCase;
+
+    @Label("Ähnlichkeit des besten Falls")
+    public double topSimilarity;
+}
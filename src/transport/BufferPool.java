@@ -0,0 +1,80 @@
+package transport;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool von Puffern fester Größe, die zwischen Verbindungen wiederverwendet werden.
+ * Puffer werden erst bei Bedarf angelegt, insgesamt aber nie mehr als {@code maxBuffers};
+ * der Speicherbedarf ist damit unabhängig von der Anzahl der Verbindungsaufbauten begrenzt.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final int maxBuffers;
+
+    /**
+     * Freie Puffer
+     */
+    private final ArrayBlockingQueue<byte[]> free;
+
+    /**
+     * Anzahl der bisher angelegten Puffer
+     */
+    private final AtomicInteger created = new AtomicInteger();
+
+    /**
+     * Konstruktor für den Pool.
+     *
+     * @param bufferSize Größe eines Puffers in Bytes
+     * @param maxBuffers Maximale Anzahl an Puffern
+     */
+    public BufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+        this.free = new ArrayBlockingQueue<>(maxBuffers);
+    }
+
+    /**
+     * Entnimmt einen Puffer. Sind alle Puffer vergeben, wird gewartet, bis einer zurückgegeben wird.
+     *
+     * @return Ein Puffer der festen Größe
+     * @throws InterruptedException Wenn der Thread beim Warten unterbrochen wird
+     */
+    public byte[] acquire() throws InterruptedException {
+        byte[] buffer = free.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (created.incrementAndGet() <= maxBuffers) {
+            return new byte[bufferSize];
+        }
+        created.decrementAndGet();
+        return free.take();
+    }
+
+    /**
+     * Gibt einen Puffer an den Pool zurück.
+     *
+     * @param buffer Der zuvor entnommene Puffer
+     */
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            free.offer(buffer);
+        }
+    }
+
+    /**
+     * @return Größe eines Puffers in Bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return Anzahl der bisher angelegten Puffer
+     */
+    public int getCreated() {
+        return created.get();
+    }
+}
@@ -0,0 +1,148 @@
+package transport;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Begrenzungen für TCP-Verbindungen: maximale Anzahl gleichzeitiger Verbindungen, Leerlauf-Timeout
+ * beim Lesen und maximale Größe einer Anfrage. Jede Verbindung erhält je einen Lese- und einen
+ * Schreibpuffer fester Größe aus einem Pool, sodass der Speicherbedarf pro Verbindung konstant und
+ * insgesamt durch die Verbindungsgrenze beschränkt ist – auch bei vielen Verbindungsaufbauten.
+ */
+public class ConnectionLimits {
+
+    /**
+     * Standardwert für die maximale Anzahl gleichzeitiger Verbindungen
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+
+    /**
+     * Standardwert für das Leerlauf-Timeout beim Lesen in Millisekunden
+     */
+    public static final int DEFAULT_IDLE_TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * Standardwert für die maximale Größe einer Anfrage in Bytes
+     */
+    public static final int DEFAULT_MAX_FRAME_BYTES = 64 * 1024;
+
+    /**
+     * Größe des Schreibpuffers je Verbindung in Bytes (längere Antworten werden in Teilen geschrieben)
+     */
+    private static final int WRITE_BUFFER_SIZE = 8 * 1024;
+
+    private final int maxConnections;
+    private final int idleTimeoutMillis;
+    private final int maxFrameBytes;
+    private final Semaphore permits;
+    private final BufferPool readBuffers;
+    private final BufferPool writeBuffers;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Puffer einer zugelassenen Verbindung. Muss nach dem Schließen der Verbindung mit
+     * {@link #close()} zurückgegeben werden.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final byte[] readBuffer;
+        private final byte[] writeBuffer;
+        private boolean closed;
+
+        private Lease(byte[] readBuffer, byte[] writeBuffer) {
+            this.readBuffer = readBuffer;
+            this.writeBuffer = writeBuffer;
+        }
+
+        public byte[] getReadBuffer() {
+            return readBuffer;
+        }
+
+        public byte[] getWriteBuffer() {
+            return writeBuffer;
+        }
+
+        /**
+         * Gibt Puffer und Verbindungsplatz frei.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                readBuffers.release(readBuffer);
+                writeBuffers.release(writeBuffer);
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Konstruktor für die Begrenzungen.
+     *
+     * @param maxConnections    Maximale Anzahl gleichzeitiger Verbindungen
+     * @param idleTimeoutMillis Leerlauf-Timeout beim Lesen in Millisekunden (0 = unbegrenzt)
+     * @param maxFrameBytes     Maximale Größe einer Anfrage in Bytes
+     */
+    public ConnectionLimits(int maxConnections, int idleTimeoutMillis, int maxFrameBytes) {
+        if (maxConnections <= 0 || idleTimeoutMillis < 0 || maxFrameBytes <= 0) {
+            throw new IllegalArgumentException("Ungültige Verbindungsgrenzen: " + maxConnections + ", "
+                    + idleTimeoutMillis + " ms, " + maxFrameBytes + " Bytes");
+        }
+        this.maxConnections = maxConnections;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxFrameBytes = maxFrameBytes;
+        this.permits = new Semaphore(maxConnections);
+        this.readBuffers = new BufferPool(maxFrameBytes, maxConnections);
+        this.writeBuffers = new BufferPool(WRITE_BUFFER_SIZE, maxConnections);
+    }
+
+    /**
+     * Lässt eine neue Verbindung zu, sofern die Grenze nicht erreicht ist.
+     *
+     * @return Die Puffer der Verbindung oder null, wenn die maximale Anzahl an Verbindungen erreicht ist
+     * @throws InterruptedException Wenn der Thread unterbrochen wird
+     */
+    public Lease tryAcquire() throws InterruptedException {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return null;
+        }
+        // Mit Platz in der Verbindungsgrenze ist immer auch ein Puffer frei
+        byte[] readBuffer = readBuffers.acquire();
+        byte[] writeBuffer = writeBuffers.acquire();
+        return new Lease(readBuffer, writeBuffer);
+    }
+
+    public int getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public int getMaxFrameBytes() {
+        return maxFrameBytes;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return Anzahl der aktuell offenen Verbindungen
+     */
+    public int getActiveConnections() {
+        return maxConnections - permits.availablePermits();
+    }
+
+    /**
+     * @return Anzahl der abgelehnten Verbindungen
+     */
+    public long getRejectedConnections() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return Maximaler Pufferspeicher aller Verbindungen in Bytes
+     */
+    public long getMaxBufferMemory() {
+        return (long) maxConnections * (maxFrameBytes + WRITE_BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,87 @@
+package transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Liest zeilenweise gerahmte Anfragen (eine JSON-Anfrage je Zeile) in einen Puffer fester Größe.
+ * Anders als {@link java.io.BufferedReader#readLine()} wächst der Puffer nicht mit: Eine Zeile, die
+ * nicht in den Puffer passt, führt zu einer {@link FrameTooLargeException}.
+ */
+public class FrameReader implements Closeable {
+
+    private final InputStream in;
+    private final byte[] buffer;
+
+    /**
+     * Beginn der noch nicht gelesenen Daten im Puffer
+     */
+    private int start;
+
+    /**
+     * Ende der gültigen Daten im Puffer
+     */
+    private int end;
+
+    /**
+     * Konstruktor für den Reader.
+     *
+     * @param in     Der Eingabestrom der Verbindung
+     * @param buffer Puffer fester Größe (bestimmt die maximale Zeilenlänge)
+     */
+    public FrameReader(InputStream in, byte[] buffer) {
+        this.in = in;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Liest die nächste Zeile (ohne Zeilenende, "\r\n" und "\n" werden akzeptiert).
+     *
+     * @return Die Zeile oder null am Ende des Stroms
+     * @throws FrameTooLargeException Wenn die Zeile nicht in den Puffer passt
+     * @throws IOException            Bei Lesefehlern oder Zeitüberschreitung
+     */
+    public String readLine() throws IOException {
+        int scan = start;
+        while (true) {
+            for (int i = scan; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    int lineEnd = i > start && buffer[i - 1] == '\r' ? i - 1 : i;
+                    String line = new String(buffer, start, lineEnd - start, StandardCharsets.UTF_8);
+                    start = i + 1;
+                    return line;
+                }
+            }
+
+            // Unvollständige Zeile an den Pufferanfang verschieben
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+            if (end == buffer.length) {
+                throw new FrameTooLargeException(buffer.length);
+            }
+
+            scan = end;
+            int read = in.read(buffer, end, buffer.length - end);
+            if (read < 0) {
+                // Letzte Zeile ohne Zeilenende
+                if (end > start) {
+                    String line = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+                    start = end;
+                    return line;
+                }
+                return null;
+            }
+            end += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
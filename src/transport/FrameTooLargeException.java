@@ -0,0 +1,18 @@
+package transport;
+
+import java.io.IOException;
+
+/**
+ * Wird geworfen, wenn eine Anfrage die maximale Größe eines Frames überschreitet.
+ */
+public class FrameTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param maxFrameBytes Maximale Größe eines Frames in Bytes
+     */
+    public FrameTooLargeException(int maxFrameBytes) {
+        super("Anfrage überschreitet die maximale Größe von " + maxFrameBytes + " Bytes");
+    }
+}
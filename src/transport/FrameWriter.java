@@ -0,0 +1,89 @@
+package transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writer, der Zeichen als UTF-8 in einen Puffer fester Größe kodiert und diesen bei Bedarf in den
+ * Ausgabestrom schreibt. Ersetzt die internen Puffer von {@link java.io.PrintWriter} und
+ * {@link java.io.OutputStreamWriter}, sodass der Puffer aus einem {@link BufferPool} stammen kann.
+ */
+public class FrameWriter extends Writer {
+
+    private final OutputStream out;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * Konstruktor für den Writer.
+     *
+     * @param out    Der Ausgabestrom der Verbindung
+     * @param buffer Puffer fester Größe
+     */
+    public FrameWriter(OutputStream out, byte[] buffer) {
+        this.out = out;
+        this.bytes = ByteBuffer.wrap(buffer);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        encode(CharBuffer.wrap(cbuf, off, len));
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        encode(CharBuffer.wrap(str, off, off + len));
+    }
+
+    /**
+     * Kodiert die Zeichen in den Puffer und schreibt ihn aus, sobald er voll ist.
+     * Jeder Aufruf wird als vollständige Eingabe behandelt ({@link java.io.PrintWriter} schreibt ganze Zeichenketten).
+     */
+    private void encode(CharBuffer chars) throws IOException {
+        encoder.reset();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytes, true);
+            if (result.isOverflow()) {
+                drain();
+            }
+        } while (result.isOverflow());
+        while (encoder.flush(bytes).isOverflow()) {
+            drain();
+        }
+    }
+
+    /**
+     * Schreibt den Pufferinhalt in den Ausgabestrom.
+     */
+    private void drain() throws IOException {
+        if (bytes.position() > 0) {
+            out.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package transport;
+
+import cbr_util.CBREngine;
+import cbr_util.QuerySpeculator;
+import com.google.gson.JsonSyntaxException;
+import de.dfki.mycbr.util.Pair;
+import model.GameStatus;
+import model.Request;
+import model.Response;
+import profiling.RequestDecodeEvent;
+import profiling.RequestEvent;
+import util.GameStatusProcessor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Gemeinsame Verarbeitung einer Client-Anfrage für alle Transportwege (TCP-Socket und Shared Memory).
+ * Wandelt eine JSON-Anfrage in eine Antwort um; das Lesen und Schreiben übernimmt der jeweilige Transport.
+ */
+public class RequestProcessor {
+
+    /**
+     * Die Instanz des CBR-Systems für Anfragen ohne Projektangabe
+     */
+    private final CBREngine cbrEngine;
+
+    /**
+     * Berechnet die wahrscheinlich nächste Anfrage eines Clients im Voraus
+     */
+    private final QuerySpeculator speculator;
+
+    /**
+     * Aufzeichnung gültiger Anfragen als Replay-Menge für Offline-Werkzeuge (null = keine Aufzeichnung)
+     */
+    private BufferedWriter replayLog;
+
+    /**
+     * Konstruktor für den RequestProcessor.
+     *
+     * @param cbrEngine  Die Instanz des CBR-Systems für Anfragen ohne Projektangabe.
+     * @param speculator Berechnet die wahrscheinlich nächste Anfrage eines Clients im Voraus.
+     */
+    public RequestProcessor(CBREngine cbrEngine, QuerySpeculator speculator) {
+        this.cbrEngine = cbrEngine;
+        this.speculator = speculator;
+    }
+
+    /**
+     * Zeichnet ab jetzt alle gültigen Anfragen zeilenweise in einer Datei auf (wird angehängt),
+     * z. B. als Replay-Menge für {@code condensation.CondensationTool}.
+     *
+     * @param path Pfad der Aufzeichnungsdatei
+     * @throws IOException Wenn die Datei nicht geöffnet werden kann
+     */
+    public void recordReplay(Path path) throws IOException {
+        replayLog = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        System.out.println("INFO: Anfragen werden aufgezeichnet in: " + path);
+    }
+
+    /**
+     * Hängt eine gültige Anfrage an die Aufzeichnung an.
+     *
+     * @param jsonRequest Die Anfrage als JSON-String
+     */
+    private void appendReplay(String jsonRequest) {
+        synchronized (replayLog) {
+            try {
+                replayLog.write(jsonRequest);
+                replayLog.newLine();
+                replayLog.flush();
+            } catch (IOException e) {
+                System.out.println("WARNING: Anfrage konnte nicht aufgezeichnet werden: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Verarbeitet eine einzelne Anfrage und gibt die zu sendende Antwort zurück.
+     *
+     * @param connection  Kennung der Verbindung, von der die Anfrage stammt.
+     * @param jsonRequest Die empfangene Anfrage als JSON-String.
+     * @return Die Antwort als JSON-String oder eine Fehlermeldung.
+     */
+    public String process(Object connection, String jsonRequest) {
+        System.out.println("INFO: Empfangene Anfrage: " + jsonRequest);
+
+        RequestEvent requestEvent = new RequestEvent();
+        requestEvent.begin();
+        RequestDecodeEvent decodeEvent = new RequestDecodeEvent();
+        decodeEvent.begin();
+        boolean decoded = false;
+
+        try {
+            // JSON-String in eine Request-Instanz umwandeln
+            Request request = Request.fromFlatJson(jsonRequest);
+
+            if (!request.isValid()) { // Gültigkeit der Anfrage überprüfen
+                System.out.println("WARNING: Ungültige Anfrage: " + jsonRequest);
+                commitDecode(decodeEvent, jsonRequest, false);
+                commitRequest(requestEvent, connection, false, null);
+                return "Ungültige Anfrage: Überprüfen Sie die Daten.";
+            }
+
+            // Projekt wählen (ohne Sperren, siehe CBREngine#getInstance(String))
+            CBREngine engine = request.project() == null ? cbrEngine : CBREngine.getInstance(request.project());
+            if (engine == null) {
+                System.out.println("WARNING: Unbekanntes Projekt in Anfrage: " + request.project());
+                commitDecode(decodeEvent, jsonRequest, false);
+                commitRequest(requestEvent, connection, false, null);
+                return "Ungültige Anfrage: Unbekanntes Projekt '" + request.project() + "'.";
+            }
+
+            if (replayLog != null) {
+                appendReplay(jsonRequest);
+            }
+
+            // Extrahieren des Spielstatus und der Attribut-Werte-Paare
+            GameStatus gameStatus = request.gameStatus();
+            Map<String, String> queryAttributes = GameStatusProcessor.extractAttributes(gameStatus);
+            commitDecode(decodeEvent, jsonRequest, true);
+            decoded = true;
+
+            // Fälle mit Ähnlichkeitswerten abrufen
+            Map<String, Pair<String, Double>> categorizedCasesWithSimilarity = engine.retrieveAndCategorizeCases(queryAttributes);
+
+            System.out.println("INFO: Abgerufene Fälle mit Ähnlichkeit: " + categorizedCasesWithSimilarity);
+
+            // Erstelle die Antwort mit Ähnlichkeitswerten
+            Map<String, Double> similarityResults = categorizedCasesWithSimilarity.entrySet().stream()
+                    .collect(Collectors.toMap(
+                            Map.Entry::getKey, // Fallname
+                            entry -> entry.getValue().getSecond() // Ähnlichkeitswert
+                    ));
+
+            Map<String, String> categorizedCases = categorizedCasesWithSimilarity.entrySet().stream()
+                    .collect(Collectors.toMap(
+                            Map.Entry::getKey,
+                            entry -> entry.getValue().getFirst()
+                    ));
+
+            // Letzten Spielstatus für die Vorausberechnung des nächsten Ticks merken
+            speculator.observe(connection, engine, gameStatus);
+
+            // Formatieren der kombinierten Antwort
+            String response = Response.formatCombinedResponse(similarityResults, categorizedCases);
+            commitRequest(requestEvent, connection, true, categorizedCases.values().stream().findFirst().orElse(null));
+            return response;
+
+        } catch (JsonSyntaxException | IllegalArgumentException e) {
+            // Fehlerhafte JSON-Anfragen behandeln
+            System.out.println("ERROR: Fehlerhafte JSON-Anfrage: " + jsonRequest);
+            if (!decoded) {
+                commitDecode(decodeEvent, jsonRequest, false);
+            }
+            commitRequest(requestEvent, connection, false, null);
+            return "Ungültige Anfrage: Überprüfen Sie die JSON-Daten.";
+        }
+    }
+
+    /**
+     * Schließt das JFR-Ereignis der Dekodierung ab (nur bei aktiver Aufzeichnung).
+     */
+    private static void commitDecode(RequestDecodeEvent event, String jsonRequest, boolean valid) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.requestBytes = jsonRequest.getBytes(StandardCharsets.UTF_8).length;
+            event.valid = valid;
+            event.commit();
+        }
+    }
+
+    /**
+     * Schließt das JFR-Ereignis der gesamten Anfrage ab (nur bei aktiver Aufzeichnung).
+     */
+    private static void commitRequest(RequestEvent event, Object connection, boolean valid, String category) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.connection = String.valueOf(connection);
+            event.valid = valid;
+            event.category = category;
+            event.commit();
+        }
+    }
+
+    /**
+     * Entfernt den Zustand einer geschlossenen Verbindung.
+     *
+     * @param connection Kennung der Verbindung
+     */
+    public void connectionClosed(Object connection) {
+        speculator.forget(connection);
+    }
+}
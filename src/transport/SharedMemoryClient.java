@@ -0,0 +1,117 @@
+package transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client für den Shared-Memory-Transport. Belegt beim Öffnen einen freien Slot der vom Server
+ * angelegten Datei und sendet Anfragen im selben JSON-Format wie über den TCP-Socket.
+ * Eine Instanz darf nur von einem Thread gleichzeitig verwendet werden.
+ *
+ * <p>
+ * Jede Anfrage erhält eine fortlaufende Sequenznummer. Läuft die Wartezeit ab, bleibt die Anfrage im Ring
+ * und wird vom Server trotzdem beantwortet; diese verspätete Antwort wird bei der nächsten Anfrage anhand
+ * der Sequenznummer erkannt und verworfen.
+ * </p>
+ */
+public class SharedMemoryClient implements Closeable {
+
+    private final SharedMemoryLayout layout;
+    private final int slot;
+    private final SharedMemoryRing requests;
+    private final SharedMemoryRing responses;
+    private boolean closed;
+
+    /**
+     * Sequenznummer der zuletzt gesendeten Anfrage
+     */
+    private long sequence;
+
+    /**
+     * Verbindet sich mit einem laufenden Server.
+     *
+     * @param path Pfad der vom Server angelegten Datei
+     * @throws IOException Wenn die Datei ungültig oder kein Slot frei ist
+     */
+    public SharedMemoryClient(Path path) throws IOException {
+        this.layout = SharedMemoryLayout.open(path);
+        this.slot = claimSlot();
+        layout.setOwner(slot, ProcessHandle.current().pid());
+        this.requests = layout.requestRing(slot);
+        this.responses = layout.responseRing(slot);
+    }
+
+    /**
+     * Belegt den ersten freien Slot.
+     *
+     * @return Nummer des Slots
+     * @throws IOException Wenn alle Slots belegt sind
+     */
+    private int claimSlot() throws IOException {
+        for (int candidate = 0; candidate < layout.getSlotCount(); candidate++) {
+            if (layout.compareAndSetState(candidate, SharedMemoryLayout.SLOT_FREE, SharedMemoryLayout.SLOT_CONNECTED)) {
+                return candidate;
+            }
+        }
+        throw new IOException("Kein freier Shared-Memory-Slot verfügbar");
+    }
+
+    /**
+     * Sendet eine Anfrage und wartet auf die Antwort.
+     *
+     * @param jsonRequest Die Anfrage als JSON-String
+     * @param timeout     Maximale Wartezeit
+     * @param unit        Einheit der Wartezeit
+     * @return Die Antwort des Servers
+     * @throws IOException Wenn die Verbindung geschlossen ist oder die Wartezeit überschritten wird
+     */
+    public String request(String jsonRequest, long timeout, TimeUnit unit) throws IOException {
+        if (closed) {
+            throw new IOException("Verbindung bereits geschlossen");
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        long id = ++sequence;
+        byte[] requestBytes = SharedMemoryLayout.frame(id, jsonRequest.getBytes(StandardCharsets.UTF_8));
+        int idleCount = 0;
+        while (!requests.offer(requestBytes)) {
+            checkDeadline(deadline);
+            SharedMemoryLayout.idle(idleCount++);
+        }
+
+        idleCount = 0;
+        byte[] response;
+        try {
+            while ((response = responses.poll()) == null || SharedMemoryLayout.sequence(response) != id) {
+                // Verspätete Antworten auf abgelaufene Anfragen verwerfen
+                checkDeadline(deadline);
+                if (response == null) {
+                    SharedMemoryLayout.idle(idleCount++);
+                }
+            }
+        } catch (IllegalStateException e) {
+            throw new IOException("Ungültige Antwort des Servers: " + e.getMessage(), e);
+        }
+        return SharedMemoryLayout.payload(response);
+    }
+
+    private static void checkDeadline(long deadline) throws IOException {
+        if (System.nanoTime() - deadline > 0) {
+            throw new IOException("Zeitüberschreitung beim Warten auf den Server");
+        }
+    }
+
+    /**
+     * Gibt den Slot frei; der Server setzt ihn anschließend zurück.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            layout.setState(slot, SharedMemoryLayout.SLOT_CLOSED);
+        }
+    }
+}
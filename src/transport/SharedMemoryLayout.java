@@ -0,0 +1,260 @@
+package transport;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Aufbau der speicherabgebildeten Datei, über die Server und Clients auf demselben Rechner kommunizieren.
+ *
+ * <p>
+ * Dateikopf (64 Bytes): Kennung, Version, Anzahl der Slots, Kapazität eines Rings.
+ * Danach folgen die Slots; jeder Slot gehört zu genau einem Client und enthält seinen Zustand
+ * (frei, verbunden, geschlossen) und die Prozess-ID des Clients sowie einen Anfrage-Ring (Client schreibt,
+ * Server liest) und einen Antwort-Ring (Server schreibt, Client liest).
+ * </p>
+ *
+ * <p>
+ * Jede Nachricht beginnt mit einer Sequenznummer (long), die der Server in seiner Antwort wiederholt.
+ * So erkennt der Client Antworten auf Anfragen, deren Wartezeit bereits abgelaufen ist.
+ * </p>
+ */
+final class SharedMemoryLayout {
+
+    /**
+     * Kennung am Dateianfang ("CBR1")
+     */
+    static final int MAGIC = 0x43425231;
+
+    /**
+     * Version des Dateiaufbaus
+     */
+    static final int VERSION = 2;
+
+    // Slot-Zustände
+    static final int SLOT_FREE = 0;
+    static final int SLOT_CONNECTED = 1;
+    static final int SLOT_CLOSED = 2;
+
+    // Aufbau des Dateikopfs
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SLOT_COUNT_OFFSET = 8;
+    private static final int RING_CAPACITY_OFFSET = 12;
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * Größe des Zustandsbereichs am Anfang jedes Slots (eine Cache-Zeile)
+     */
+    private static final int SLOT_STATE_SIZE = 64;
+
+    /**
+     * Position der Prozess-ID des Clients innerhalb des Zustandsbereichs (0 = unbekannt)
+     */
+    private static final int SLOT_OWNER_OFFSET = 8;
+
+    /**
+     * Größe der Sequenznummer am Anfang jeder Nachricht
+     */
+    private static final int SEQUENCE_BYTES = Long.BYTES;
+
+    /**
+     * Atomarer Zugriff auf int-Werte im gemeinsamen Speicher
+     */
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    /**
+     * Atomarer Zugriff auf long-Werte im gemeinsamen Speicher
+     */
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * Anzahl aktiver Warteschritte vor dem Nachgeben; auf Einkern-Systemen würde aktives Warten
+     * nur die Gegenseite am Laufen hindern
+     */
+    private static final int SPIN_LIMIT = Runtime.getRuntime().availableProcessors() > 1 ? 10_000 : 0;
+
+    /**
+     * Anzahl der Versuche, bei denen dem Scheduler nachgegeben wird, bevor kurz geschlafen wird
+     */
+    private static final int YIELD_LIMIT = SPIN_LIMIT + 1_000;
+
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final int ringCapacity;
+
+    private SharedMemoryLayout(MappedByteBuffer buffer, int slotCount, int ringCapacity) {
+        this.buffer = buffer;
+        this.slotCount = slotCount;
+        this.ringCapacity = ringCapacity;
+    }
+
+    /**
+     * Legt die Datei neu an (serverseitig) und initialisiert den Dateikopf.
+     *
+     * @param path         Pfad der Datei
+     * @param slotCount    Maximale Anzahl gleichzeitiger Clients
+     * @param ringCapacity Kapazität eines Rings in Bytes (Zweierpotenz)
+     * @return Der initialisierte Aufbau
+     * @throws IOException Wenn die Datei nicht angelegt werden kann
+     */
+    static SharedMemoryLayout create(Path path, int slotCount, int ringCapacity) throws IOException {
+        long size = HEADER_SIZE + (long) slotCount * slotSize(ringCapacity);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.nativeOrder());
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putInt(SLOT_COUNT_OFFSET, slotCount);
+            buffer.putInt(RING_CAPACITY_OFFSET, ringCapacity);
+            // Kennung zuletzt schreiben, damit Clients nur vollständige Köpfe sehen
+            INT.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+            return new SharedMemoryLayout(buffer, slotCount, ringCapacity);
+        }
+    }
+
+    /**
+     * Öffnet eine vom Server angelegte Datei (clientseitig).
+     *
+     * @param path Pfad der Datei
+     * @return Der gelesene Aufbau
+     * @throws IOException Wenn die Datei fehlt oder keinen gültigen Kopf besitzt
+     */
+    static SharedMemoryLayout open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.order(ByteOrder.nativeOrder());
+            if (channel.size() < HEADER_SIZE || (int) INT.getAcquire(buffer, MAGIC_OFFSET) != MAGIC
+                    || buffer.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Ungültige Shared-Memory-Datei: " + path);
+            }
+            return new SharedMemoryLayout(buffer, buffer.getInt(SLOT_COUNT_OFFSET), buffer.getInt(RING_CAPACITY_OFFSET));
+        }
+    }
+
+    /**
+     * Größe eines Slots in Bytes.
+     */
+    private static int slotSize(int ringCapacity) {
+        return SLOT_STATE_SIZE + 2 * SharedMemoryRing.size(ringCapacity);
+    }
+
+    /**
+     * Startposition eines Slots in der Datei.
+     */
+    private int slotOffset(int slot) {
+        return HEADER_SIZE + slot * slotSize(ringCapacity);
+    }
+
+    /**
+     * @return Der Zustand eines Slots
+     */
+    int state(int slot) {
+        return (int) INT.getAcquire(buffer, slotOffset(slot));
+    }
+
+    /**
+     * Setzt den Zustand eines Slots.
+     */
+    void setState(int slot, int state) {
+        INT.setRelease(buffer, slotOffset(slot), state);
+    }
+
+    /**
+     * Ändert den Zustand eines Slots atomar.
+     *
+     * @return true, wenn der Slot den erwarteten Zustand hatte und geändert wurde
+     */
+    boolean compareAndSetState(int slot, int expected, int state) {
+        return INT.compareAndSet(buffer, slotOffset(slot), expected, state);
+    }
+
+    /**
+     * Vermerkt die Prozess-ID des Clients, der den Slot belegt hat (0 beim Freigeben).
+     */
+    void setOwner(int slot, long pid) {
+        LONG.setRelease(buffer, slotOffset(slot) + SLOT_OWNER_OFFSET, pid);
+    }
+
+    /**
+     * Prüft, ob der Prozess, der den Slot belegt hat, noch läuft. Ist die Prozess-ID noch nicht
+     * eingetragen, gilt der Client als aktiv.
+     *
+     * @return false, wenn der Client-Prozess beendet ist, ohne den Slot freizugeben
+     */
+    boolean isOwnerAlive(int slot) {
+        long pid = (long) LONG.getAcquire(buffer, slotOffset(slot) + SLOT_OWNER_OFFSET);
+        return pid == 0 || ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    /**
+     * @return Der Anfrage-Ring eines Slots (Client schreibt, Server liest)
+     */
+    SharedMemoryRing requestRing(int slot) {
+        return new SharedMemoryRing(buffer, slotOffset(slot) + SLOT_STATE_SIZE, ringCapacity);
+    }
+
+    /**
+     * @return Der Antwort-Ring eines Slots (Server schreibt, Client liest)
+     */
+    SharedMemoryRing responseRing(int slot) {
+        return new SharedMemoryRing(buffer, slotOffset(slot) + SLOT_STATE_SIZE + SharedMemoryRing.size(ringCapacity), ringCapacity);
+    }
+
+    /**
+     * Setzt eine Nachricht aus Sequenznummer und Nutzdaten zusammen.
+     *
+     * @param sequence Sequenznummer der Anfrage
+     * @param payload  Nutzdaten (UTF-8-kodiertes JSON)
+     * @return Die Nachricht für den Ring
+     */
+    static byte[] frame(long sequence, byte[] payload) {
+        return ByteBuffer.allocate(SEQUENCE_BYTES + payload.length).putLong(sequence).put(payload).array();
+    }
+
+    /**
+     * @return Die Sequenznummer einer Nachricht
+     * @throws IllegalStateException Wenn die Nachricht keine Sequenznummer enthält
+     */
+    static long sequence(byte[] frame) {
+        if (frame.length < SEQUENCE_BYTES) {
+            throw new IllegalStateException("Nachricht ohne Sequenznummer: " + frame.length + " Bytes");
+        }
+        return ByteBuffer.wrap(frame).getLong();
+    }
+
+    /**
+     * @return Die Nutzdaten einer Nachricht als String
+     */
+    static String payload(byte[] frame) {
+        return new String(frame, SEQUENCE_BYTES, frame.length - SEQUENCE_BYTES, StandardCharsets.UTF_8);
+    }
+
+    int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Wartestrategie beim Pollen: zunächst aktiv warten (geringste Latenz), dann dem Scheduler
+     * nachgeben und schließlich kurz schlafen, um bei Leerlauf keinen Kern zu blockieren.
+     *
+     * @param idleCount Anzahl der bisherigen erfolglosen Versuche
+     */
+    static void idle(int idleCount) {
+        if (idleCount < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else if (idleCount < YIELD_LIMIT) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package transport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Referenz-Client zum Testen des Shared-Memory-Transports. Sendet wiederholt einen Beispiel-Spielstatus
+ * und gibt die Umlaufzeiten (Perzentile in Mikrosekunden) aus. Mit {@code tcp} statt eines Dateipfads
+ * wird zum Vergleich derselbe Ablauf über den TCP-Socket gemessen.
+ *
+ * <p>
+ * Start: {@code java transport.SharedMemoryReferenceClient <datei|tcp> [Anzahl]}
+ * </p>
+ */
+public class SharedMemoryReferenceClient {
+
+    /**
+     * Beispielanfrage im Format der Bots
+     */
+    private static final String SAMPLE_REQUEST = "{\"iteration\":120,\"workers\":18,\"idleWorkers\":0,\"minerals\":350,"
+            + "\"gas\":75,\"pylons\":2,\"nexus\":1,\"gateways\":1,\"cyberneticsCores\":0,\"supplyUsed\":20,"
+            + "\"supplyCap\":31,\"assimilator\":1,\"totalAssimilatorHarvesters\":3,\"zealot\":0,\"stalker\":0,"
+            + "\"supplyDifferenceUsedCap\":11,\"nexusWorker\":18,\"nexusTrainingStatus\":1}";
+
+    /**
+     * Anzahl der Anfragen, die vor der Messung gesendet werden
+     */
+    private static final int WARMUP_REQUESTS = 1000;
+
+    /**
+     * Maximale Wartezeit auf eine Antwort in Sekunden
+     */
+    private static final long TIMEOUT_SECONDS = 5;
+
+    /**
+     * Port des TCP-Servers für den Vergleich
+     */
+    private static final int TCP_PORT = 65432;
+
+    /**
+     * Gemeinsame Schnittstelle der beiden Transportwege für die Messung.
+     */
+    private interface Transport {
+        String request(String jsonRequest) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("ERROR: Aufruf: SharedMemoryReferenceClient <datei|tcp> [Anzahl]");
+            return;
+        }
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        if (args[0].equals("tcp")) {
+            try (Socket socket = new Socket("localhost", TCP_PORT);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+                socket.setTcpNoDelay(true);
+                measure("TCP", count, jsonRequest -> {
+                    out.println(jsonRequest);
+                    return in.readLine();
+                });
+            }
+        } else {
+            try (SharedMemoryClient client = new SharedMemoryClient(Path.of(args[0]))) {
+                measure("Shared Memory", count,
+                        jsonRequest -> client.request(jsonRequest, TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    /**
+     * Sendet die Beispielanfrage wiederholt und gibt die Perzentile der Umlaufzeit aus.
+     */
+    private static void measure(String name, int count, Transport transport) throws IOException {
+        System.out.println("INFO: Antwort: " + transport.request(SAMPLE_REQUEST));
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            transport.request(SAMPLE_REQUEST);
+        }
+
+        long[] roundTrips = new long[count];
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            transport.request(SAMPLE_REQUEST);
+            roundTrips[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(roundTrips);
+
+        System.out.printf("INFO: %s, %d Anfragen: p50 %.1f µs, p90 %.1f µs, p99 %.1f µs, max %.1f µs%n",
+                name, count, percentile(roundTrips, 0.50), percentile(roundTrips, 0.90),
+                percentile(roundTrips, 0.99), roundTrips[count - 1] / 1000.0);
+    }
+
+    /**
+     * @return Das Perzentil der sortierten Umlaufzeiten in Mikrosekunden
+     */
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+}
@@ -0,0 +1,160 @@
+package transport;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Ringpuffer für genau einen Schreiber und genau einen Leser (Single Producer / Single Consumer)
+ * innerhalb eines gemeinsam genutzten, speicherabgebildeten Bereichs.
+ *
+ * <p>
+ * Aufbau ab {@code base}: Leseposition (long) und Schreibposition (long) jeweils in einer eigenen
+ * Cache-Zeile, danach {@code capacity} Datenbytes. Nachrichten werden als Länge (int) gefolgt von den
+ * Nutzdaten abgelegt und dürfen über das Pufferende hinaus umbrechen. Die Schreibposition wird erst
+ * nach dem Kopieren der Daten mit Release-Semantik veröffentlicht, der Leser liest sie mit
+ * Acquire-Semantik, sodass keine Sperren nötig sind – auch nicht zwischen Prozessen.
+ * </p>
+ */
+final class SharedMemoryRing {
+
+    /**
+     * Atomarer Zugriff auf long-Werte im gemeinsamen Speicher
+     */
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // Aufbau des Ringkopfs (eine Cache-Zeile je Position, um False Sharing zu vermeiden)
+    private static final int HEAD_OFFSET = 0;
+    private static final int TAIL_OFFSET = 64;
+    private static final int DATA_OFFSET = 128;
+
+    /**
+     * Größe des Längenfelds vor jeder Nachricht
+     */
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int base;
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * Konstruktor für einen Ring innerhalb eines gemeinsamen Puffers.
+     *
+     * @param buffer   Der speicherabgebildete Puffer
+     * @param base     Startposition des Rings im Puffer (muss 8-Byte-ausgerichtet sein)
+     * @param capacity Anzahl der Datenbytes (Zweierpotenz)
+     */
+    SharedMemoryRing(ByteBuffer buffer, int base, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Die Kapazität muss eine Zweierpotenz sein: " + capacity);
+        }
+        this.buffer = buffer;
+        this.base = base;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Gibt den Speicherbedarf eines Rings zurück.
+     *
+     * @param capacity Anzahl der Datenbytes
+     * @return Größe in Bytes inklusive Kopf
+     */
+    static int size(int capacity) {
+        return DATA_OFFSET + capacity;
+    }
+
+    /**
+     * Schreibt eine Nachricht in den Ring (nur vom Schreiber aufzurufen).
+     *
+     * @param message Die Nachricht
+     * @return true, wenn die Nachricht geschrieben wurde, false, wenn der Ring zu voll ist
+     * @throws IllegalArgumentException Wenn die Nachricht nie in den Ring passen würde
+     */
+    boolean offer(byte[] message) {
+        int needed = LENGTH_BYTES + message.length;
+        if (needed > capacity) {
+            throw new IllegalArgumentException("Nachricht zu groß für den Ringpuffer: " + message.length + " Bytes");
+        }
+
+        long tail = (long) LONG.getOpaque(buffer, base + TAIL_OFFSET);
+        long head = (long) LONG.getAcquire(buffer, base + HEAD_OFFSET);
+        if (needed > capacity - (tail - head)) {
+            return false;
+        }
+
+        byte[] length = {
+                (byte) (message.length >>> 24), (byte) (message.length >>> 16),
+                (byte) (message.length >>> 8), (byte) message.length
+        };
+        write(tail, length);
+        write(tail + LENGTH_BYTES, message);
+
+        // Nachricht für den Leser veröffentlichen
+        LONG.setRelease(buffer, base + TAIL_OFFSET, tail + needed);
+        return true;
+    }
+
+    /**
+     * Liest die nächste Nachricht aus dem Ring (nur vom Leser aufzurufen).
+     *
+     * @return Die Nachricht oder null, wenn der Ring leer ist
+     * @throws IllegalStateException Wenn das Längenfeld ungültig ist (beschädigter Ring)
+     */
+    byte[] poll() {
+        long head = (long) LONG.getOpaque(buffer, base + HEAD_OFFSET);
+        long tail = (long) LONG.getAcquire(buffer, base + TAIL_OFFSET);
+        if (head == tail) {
+            return null;
+        }
+
+        byte[] length = read(head, LENGTH_BYTES);
+        int messageLength = (length[0] & 0xFF) << 24 | (length[1] & 0xFF) << 16
+                | (length[2] & 0xFF) << 8 | (length[3] & 0xFF);
+        // Die Länge stammt aus dem gemeinsamen Speicher und wird vor dem Anlegen des Puffers geprüft
+        if (messageLength < 0 || messageLength > tail - head - LENGTH_BYTES) {
+            throw new IllegalStateException("Ungültige Nachrichtenlänge im Ringpuffer: " + messageLength + " Bytes");
+        }
+        byte[] message = read(head + LENGTH_BYTES, messageLength);
+
+        // Platz für den Schreiber freigeben
+        LONG.setRelease(buffer, base + HEAD_OFFSET, head + LENGTH_BYTES + messageLength);
+        return message;
+    }
+
+    /**
+     * Setzt den Ring zurück. Darf nur aufgerufen werden, wenn weder Schreiber noch Leser aktiv sind.
+     */
+    void reset() {
+        LONG.setRelease(buffer, base + HEAD_OFFSET, 0L);
+        LONG.setRelease(buffer, base + TAIL_OFFSET, 0L);
+    }
+
+    /**
+     * Kopiert Bytes ab einer logischen Position in den Datenbereich (mit Umbruch am Ende).
+     */
+    private void write(long position, byte[] source) {
+        int offset = (int) (position & mask);
+        int firstPart = Math.min(source.length, capacity - offset);
+        buffer.put(base + DATA_OFFSET + offset, source, 0, firstPart);
+        if (firstPart < source.length) {
+            buffer.put(base + DATA_OFFSET, source, firstPart, source.length - firstPart);
+        }
+    }
+
+    /**
+     * Liest Bytes ab einer logischen Position aus dem Datenbereich (mit Umbruch am Ende).
+     */
+    private byte[] read(long position, int length) {
+        byte[] target = new byte[length];
+        int offset = (int) (position & mask);
+        int firstPart = Math.min(length, capacity - offset);
+        buffer.get(base + DATA_OFFSET + offset, target, 0, firstPart);
+        if (firstPart < length) {
+            buffer.get(base + DATA_OFFSET, target, firstPart, length - firstPart);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,219 @@
+package transport;
+
+import profiling.ConnectionAcceptedEvent;
+import profiling.ConnectionClosedEvent;
+import profiling.ResponseWriteEvent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serverseite des Shared-Memory-Transports für Bots, die auf demselben Rechner laufen.
+ * Ein Hintergrund-Thread überwacht die Slots der speicherabgebildeten Datei; für jeden verbundenen
+ * Client wird ein eigener Thread gestartet, der Anfragen aus dem Anfrage-Ring liest, sie über den
+ * {@link RequestProcessor} verarbeitet und die Antwort in den Antwort-Ring schreibt.
+ * Beendet sich ein Client-Prozess, ohne die Verbindung zu schließen, wird sein Slot anhand der
+ * eingetragenen Prozess-ID erkannt und wieder freigegeben.
+ */
+public class SharedMemoryServer {
+
+    /**
+     * Standardanzahl gleichzeitiger Shared-Memory-Clients
+     */
+    public static final int DEFAULT_SLOT_COUNT = 16;
+
+    /**
+     * Standardkapazität eines Rings in Bytes
+     */
+    public static final int DEFAULT_RING_CAPACITY = 64 * 1024;
+
+    /**
+     * Intervall in Millisekunden, in dem nach neuen Clients gesucht wird
+     */
+    private static final long ACCEPT_POLL_MILLIS = 1;
+
+    /**
+     * Intervall, in dem geprüft wird, ob der Prozess eines verbundenen Clients noch läuft
+     */
+    private static final long OWNER_CHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Bezeichnung des Transports in den JFR-Ereignissen
+     */
+    private static final String TRANSPORT = "shm";
+
+    private final Path path;
+    private final RequestProcessor processor;
+    private final SharedMemoryLayout layout;
+
+    /**
+     * Slots, für die bereits ein Verarbeitungs-Thread läuft
+     */
+    private final Set<Integer> served = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Zeitpunkt (System.nanoTime) der nächsten Prüfung des Client-Prozesses je Slot
+     * (nur vom Thread des jeweiligen Slots verwendet)
+     */
+    private final long[] nextOwnerCheck;
+
+    /**
+     * Legt die Shared-Memory-Datei an.
+     *
+     * @param path      Pfad der Datei (idealerweise auf einem RAM-Dateisystem wie /dev/shm)
+     * @param slotCount Maximale Anzahl gleichzeitiger Clients
+     * @param processor Gemeinsame Verarbeitung der Anfragen
+     * @throws IOException Wenn die Datei nicht angelegt werden kann
+     */
+    public SharedMemoryServer(Path path, int slotCount, RequestProcessor processor) throws IOException {
+        this.path = path;
+        this.processor = processor;
+        this.layout = SharedMemoryLayout.create(path, slotCount, DEFAULT_RING_CAPACITY);
+        this.nextOwnerCheck = new long[slotCount];
+    }
+
+    /**
+     * Startet den Thread, der neue Clients erkennt.
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "shm-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("INFO: Shared-Memory-Transport gestartet: " + path + " (" + layout.getSlotCount() + " Slots)");
+    }
+
+    /**
+     * Sucht fortlaufend nach neu verbundenen Clients.
+     */
+    private void acceptLoop() {
+        try {
+            while (true) {
+                for (int slot = 0; slot < layout.getSlotCount(); slot++) {
+                    if (layout.state(slot) == SharedMemoryLayout.SLOT_CONNECTED && served.add(slot)) {
+                        int connectedSlot = slot;
+                        System.out.println("INFO: Shared-Memory-Client verbunden (Slot " + slot + ")");
+                        new Thread(() -> handleSlot(connectedSlot), "shm-slot-" + slot).start();
+                    }
+                }
+                Thread.sleep(ACCEPT_POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Verarbeitet die Anfragen eines Clients, bis dieser die Verbindung schließt.
+     *
+     * @param slot Der Slot des Clients
+     */
+    private void handleSlot(int slot) {
+        SharedMemoryRing requests = layout.requestRing(slot);
+        SharedMemoryRing responses = layout.responseRing(slot);
+        String connection = "shm:" + path + "#" + slot;
+
+        ConnectionAcceptedEvent acceptedEvent = new ConnectionAcceptedEvent();
+        if (acceptedEvent.shouldCommit()) {
+            acceptedEvent.connection = connection;
+            acceptedEvent.transport = TRANSPORT;
+            acceptedEvent.commit();
+        }
+        ConnectionClosedEvent closedEvent = new ConnectionClosedEvent();
+        closedEvent.begin();
+        nextOwnerCheck[slot] = System.nanoTime() + OWNER_CHECK_NANOS;
+
+        int idleCount = 0;
+        try {
+            while (true) {
+                byte[] request = requests.poll();
+                if (request == null) {
+                    if (isDisconnected(slot)) {
+                        break;
+                    }
+                    SharedMemoryLayout.idle(idleCount++);
+                    continue;
+                }
+                idleCount = 0;
+
+                long sequence = SharedMemoryLayout.sequence(request);
+                String response = processor.process(connection, SharedMemoryLayout.payload(request));
+                ResponseWriteEvent writeEvent = new ResponseWriteEvent();
+                writeEvent.begin();
+                byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+                // Sequenznummer der Anfrage übernehmen, damit der Client verspätete Antworten erkennt
+                byte[] responseFrame = SharedMemoryLayout.frame(sequence, responseBytes);
+                int fullCount = 0;
+                while (true) {
+                    try {
+                        if (responses.offer(responseFrame)) {
+                            break;
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // Antwort passt nie in den Ring: stattdessen eine Fehlermeldung senden
+                        System.out.println("WARNING: " + e.getMessage() + " (Slot " + slot + ")");
+                        responseBytes = ("Ungültige Anfrage: Antwort zu groß (" + responseBytes.length + " Bytes).").getBytes(StandardCharsets.UTF_8);
+                        responseFrame = SharedMemoryLayout.frame(sequence, responseBytes);
+                        continue;
+                    }
+                    if (isDisconnected(slot)) {
+                        break;
+                    }
+                    SharedMemoryLayout.idle(fullCount++);
+                }
+                writeEvent.end();
+                if (writeEvent.shouldCommit()) {
+                    writeEvent.connection = connection;
+                    writeEvent.responseBytes = responseBytes.length;
+                    writeEvent.commit();
+                }
+                closedEvent.requests++;
+            }
+        } catch (IllegalStateException e) {
+            // Beschädigter Ring: die Nachrichtengrenzen sind verloren, der Client wird getrennt
+            System.out.println("ERROR: Ungültige Nachricht in Slot " + slot + ": " + e.getMessage());
+        } finally {
+            // Slot für den nächsten Client freigeben, auch wenn die Verarbeitung fehlgeschlagen ist
+            requests.reset();
+            responses.reset();
+            processor.connectionClosed(connection);
+            closedEvent.end();
+            if (closedEvent.shouldCommit()) {
+                closedEvent.connection = connection;
+                closedEvent.transport = TRANSPORT;
+                closedEvent.commit();
+            }
+            // Erst nach der Freigabe aus "served" entfernen, sonst würde ein beendeter Client erneut bedient
+            layout.setOwner(slot, 0);
+            layout.setState(slot, SharedMemoryLayout.SLOT_FREE);
+            served.remove(slot);
+        }
+        System.out.println("INFO: Shared-Memory-Client getrennt (Slot " + slot + ")");
+    }
+
+    /**
+     * Prüft, ob der Client die Verbindung geschlossen hat oder sein Prozess nicht mehr läuft.
+     * Die Prozessprüfung erfolgt höchstens einmal je {@link #OWNER_CHECK_NANOS}.
+     *
+     * @param slot Der Slot des Clients
+     * @return true, wenn der Slot freigegeben werden kann
+     */
+    private boolean isDisconnected(int slot) {
+        if (layout.state(slot) == SharedMemoryLayout.SLOT_CLOSED) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (now - nextOwnerCheck[slot] < 0) {
+            return false;
+        }
+        nextOwnerCheck[slot] = now + OWNER_CHECK_NANOS;
+        if (!layout.isOwnerAlive(slot)) {
+            System.out.println("WARNING: Shared-Memory-Client in Slot " + slot + " wurde ohne Abmeldung beendet");
+            return true;
+        }
+        return false;
+    }
+}